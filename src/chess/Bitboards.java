@@ -0,0 +1,314 @@
+package chess;
+
+/**
+ * The attack tables for bitboards. A bitboard is a long with one bit for each
+ * square, bit row*8+col, so the same numbering as Move uses. Knights, kings
+ * and pawns always attack the same squares from a square, so those are just
+ * looked up, and so are the rays, every square from a square to the edge of
+ * the board in each Direction. Rooks and bishops depend on what is in the way, so those use
+ * magic bitboards: the pieces on the lines out from the square get multiplied
+ * by a magic number that squeezes every arrangement into a small index into
+ * a table of precomputed attacks.
+ *
+ * The magic numbers below were found by trying random numbers with few bits
+ * set until one worked for each square. They only fit this square numbering.
+ */
+public final class Bitboards
+{
+    private static final int SQUARES = Chess.ROWS*Chess.COLUMNS;
+    private static final int[] KNIGHT_ROW_STEPS = {-2,-2,-1,-1,1,1,2,2};
+    private static final int[] KNIGHT_COL_STEPS = {-1,1,-2,2,-2,2,-1,1};
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private static final long[][] RAYS = new long[DIRECTIONS.length][SQUARES];
+    private static final long[] KNIGHT = new long[SQUARES];
+    private static final long[] KING = new long[SQUARES];
+    private static final long[][] PAWN = new long[PieceColor.values().length][SQUARES];
+
+    private static final long[] ROOK_MASKS = new long[SQUARES];
+    private static final int[] ROOK_SHIFTS = new int[SQUARES];
+    private static final long[][] ROOK_ATTACKS = new long[SQUARES][];
+    private static final long[] BISHOP_MASKS = new long[SQUARES];
+    private static final int[] BISHOP_SHIFTS = new int[SQUARES];
+    private static final long[][] BISHOP_ATTACKS = new long[SQUARES][];
+
+    private static final long[] ROOK_MAGICS = {
+        0x0080008020400014L, 0x0140200040001000L, 0x01001020000C4100L, 0x2100062010010008L,
+        0x2A000200201018F4L, 0x0100010002080400L, 0x0400084210090094L, 0x210009000380C022L,
+        0x208080008C694000L, 0x4000400040201000L, 0x0020801000802000L, 0x0001001004200900L,
+        0x108E002200040810L, 0x0002000201100408L, 0x0002000108840200L, 0x600200090400A44AL,
+        0x2181010020800040L, 0x1440004040201000L, 0x0080808010002000L, 0x0048420020120008L,
+        0x0001010010040800L, 0x0040080104201040L, 0x2000808002000100L, 0xC004020000810044L,
+        0x8020401180008020L, 0x2040100240200040L, 0x80C0200080100081L, 0x0401002100081000L,
+        0x0C08110100040801L, 0x6103004900040002L, 0x22010009000A001CL, 0x082001020004B244L,
+        0x8000204010800080L, 0x0000804000802000L, 0x0800100082802002L, 0x0080080080801002L,
+        0x0004008004800801L, 0x4800040080800200L, 0x0248104244000108L, 0x0000086402000491L,
+        0x0440054020838003L, 0x08100C5020004000L, 0x0002004010820020L, 0x8100081200220040L,
+        0x9810080004008080L, 0x044E000400808002L, 0x0800018210040048L, 0x0068890680C20004L,
+        0x0080284080090300L, 0x3000400480200280L, 0x1480200080100080L, 0x0640100020090100L,
+        0x41014800902D0100L, 0x2112000410080200L, 0x5094380210018400L, 0x8084044120940A00L,
+        0x0585001440288001L, 0x1004102240030481L, 0xC168100822004082L, 0x001200044090208AL,
+        0x001A00A004091042L, 0x0601000A0804000BL, 0x8190009018421104L, 0x0012888441710402L
+    };
+    private static final long[] BISHOP_MAGICS = {
+        0x0288081088005100L, 0x02041000A2008000L, 0x74284A40C6010020L, 0x0002209202000030L,
+        0x1804042100002001L, 0x0001100210000000L, 0x0001209004200440L, 0x2201002811080801L,
+        0x0000043004480480L, 0x200A085009004108L, 0x000008008112009CL, 0x4000208903010600L,
+        0x2000011040400000L, 0x0002860802A80200L, 0x0528008421084000L, 0x0000430400A20880L,
+        0x02C044D022184100L, 0x0111020881280082L, 0x2002026040810600L, 0x4021022020408040L,
+        0x0043000090400008L, 0x0410400480504012L, 0x21004420A8041000L, 0x1008200082213000L,
+        0x0008200088029000L, 0x0181040020480200L, 0x0051100001040024L, 0x0894802008020120L,
+        0x0080840002020204L, 0x1448002002008400L, 0x0834040000888448L, 0x04120480020080A0L,
+        0xE008224004480890L, 0x0801440280200802L, 0x0442240100100114L, 0x0039600800290810L,
+        0x040C0104004A0082L, 0x0005010300020068L, 0x2024084200004108L, 0x0844210620044C00L,
+        0x08040202C0001020L, 0x010E080202C00840L, 0x1001001082011004L, 0x0100060212001402L,
+        0x00153A1040407400L, 0x100400A80203B040L, 0xA808881844442A80L, 0x0004008202588E00L,
+        0x0804240202100420L, 0x0B00220804340024L, 0xA0480106880414A1L, 0x50000700420E1086L,
+        0x8000141002021920L, 0x0088608910012002L, 0x041010254B040004L, 0x0028B10400860080L,
+        0x1488210118200210L, 0x0040010111100300L, 0x0001840100864108L, 0x0CD01910520A0202L,
+        0x0100200032420601L, 0x1024032A20084085L, 0x9060220204112400L, 0x2108085002A02300L
+    };
+
+    static
+    {
+        for (int square = 0; square < SQUARES; square++)
+        {
+            int row = square/Chess.COLUMNS;
+            int col = square%Chess.COLUMNS;
+            for (int i = 0; i < KNIGHT_ROW_STEPS.length; i++)
+                KNIGHT[square] |= bit(row+KNIGHT_ROW_STEPS[i],col+KNIGHT_COL_STEPS[i]);
+            //white pawns go up the board, to lower rows
+            PAWN[PieceColor.WHITE.ordinal()][square] = bit(row-1,col-1)|bit(row-1,col+1);
+            PAWN[PieceColor.BLACK.ordinal()][square] = bit(row+1,col-1)|bit(row+1,col+1);
+            for (Direction d: DIRECTIONS)
+            {
+                KING[square] |= bit(row+d.getRowStep(),col+d.getColStep());
+                int r = row+d.getRowStep();
+                int c = col+d.getColStep();
+                for (; bit(r,c)!=0; r+=d.getRowStep(), c+=d.getColStep())
+                    RAYS[d.ordinal()][square] |= bit(r,c);
+            }
+        }
+        for (int square = 0; square < SQUARES; square++)
+        {
+            ROOK_MASKS[square] = mask(square,false);
+            ROOK_SHIFTS[square] = 64-Long.bitCount(ROOK_MASKS[square]);
+            ROOK_ATTACKS[square] = fill(square,ROOK_MASKS[square],ROOK_MAGICS[square],
+                    ROOK_SHIFTS[square],false);
+            BISHOP_MASKS[square] = mask(square,true);
+            BISHOP_SHIFTS[square] = 64-Long.bitCount(BISHOP_MASKS[square]);
+            BISHOP_ATTACKS[square] = fill(square,BISHOP_MASKS[square],BISHOP_MAGICS[square],
+                    BISHOP_SHIFTS[square],true);
+        }
+    }
+
+    private Bitboards()
+    {
+    }
+
+    /**
+     * Gets the bit of a square, or 0 if it is off the board
+     * @param row the row of the square
+     * @param col the col of the square
+     * @return the bit
+     */
+    public static long bit(int row, int col)
+    {
+        if (row<0||row>=Chess.ROWS||col<0||col>=Chess.COLUMNS)
+            return 0;
+        return 1L<<(row*Chess.COLUMNS+col);
+    }
+
+    /**
+     * Gets every square from a square to the edge of the board in a direction,
+     * not counting the square itself
+     * @param direction the direction
+     * @param square the square to start from
+     * @return the squares on the ray
+     */
+    public static long ray(Direction direction, int square)
+    {
+        return RAYS[direction.ordinal()][square];
+    }
+
+    /**
+     * Gets the squares strictly between two squares on the same line, or none
+     * if they aren't on one
+     * @param a one square
+     * @param b the other square
+     * @return the squares between them
+     */
+    public static long between(int a, int b)
+    {
+        long target = 1L<<b;
+        for (Direction d: DIRECTIONS)
+            if ((RAYS[d.ordinal()][a]&target)!=0)
+                return RAYS[d.ordinal()][a]&~RAYS[d.ordinal()][b]&~target;
+        return 0;
+    }
+
+    /**
+     * Gets the squares a knight attacks
+     * @param square the square of the knight
+     * @return the squares it attacks
+     */
+    public static long knight(int square)
+    {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Gets the squares a king attacks
+     * @param square the square of the king
+     * @return the squares it attacks
+     */
+    public static long king(int square)
+    {
+        return KING[square];
+    }
+
+    /**
+     * Gets the two squares a pawn attacks. Turned around, these are also the
+     * squares a pawn of the other color would attack this square from.
+     * @param color the color of the pawn
+     * @param square the square of the pawn
+     * @return the squares it attacks
+     */
+    public static long pawn(PieceColor color, int square)
+    {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * Gets the squares a rook attacks, up to and including the first piece in
+     * each direction
+     * @param square the square of the rook
+     * @param occupied every piece on the board
+     * @return the squares it attacks
+     */
+    public static long rook(int square, long occupied)
+    {
+        int index = (int)(((occupied&ROOK_MASKS[square])*ROOK_MAGICS[square])>>>ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    /**
+     * Gets the squares a bishop attacks, up to and including the first piece
+     * in each direction
+     * @param square the square of the bishop
+     * @param occupied every piece on the board
+     * @return the squares it attacks
+     */
+    public static long bishop(int square, long occupied)
+    {
+        int index = (int)(((occupied&BISHOP_MASKS[square])*BISHOP_MAGICS[square])>>>BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    /**
+     * Gets the squares a queen attacks
+     * @param square the square of the queen
+     * @param occupied every piece on the board
+     * @return the squares it attacks
+     */
+    public static long queen(int square, long occupied)
+    {
+        return rook(square,occupied)|bishop(square,occupied);
+    }
+
+    /**
+     * Gets the squares a piece attacks
+     * @param type the type of the piece
+     * @param color the color of the piece, which only matters for pawns
+     * @param square the square of the piece
+     * @param occupied every piece on the board
+     * @return the squares it attacks
+     */
+    public static long attacks(Type type, PieceColor color, int square, long occupied)
+    {
+        switch (type)
+        {
+            case PAWN: return pawn(color,square);
+            case KNIGHT: return knight(square);
+            case BISHOP: return bishop(square,occupied);
+            case ROOK: return rook(square,occupied);
+            case QUEEN: return queen(square,occupied);
+            case KING: return king(square);
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the squares a rook or bishop attacks the slow way, along each ray
+     * up to the first piece, for filling in the tables
+     * @param square the square to start from
+     * @param occupied the pieces in the way
+     * @param diagonal true for a bishop, false for a rook
+     * @return the squares attacked
+     */
+    private static long slides(int square, long occupied, boolean diagonal)
+    {
+        long squares = 0;
+        for (Direction d: DIRECTIONS)
+        {
+            if (d.isDiagonal()!=diagonal)
+                continue;
+            long ray = RAYS[d.ordinal()][square];
+            long blockers = ray&occupied;
+            if (blockers!=0) //cut the ray off after the nearest piece
+            {
+                int nearest = d.getSquareStep()>0 ? Long.numberOfTrailingZeros(blockers)
+                        : 63-Long.numberOfLeadingZeros(blockers);
+                ray ^= RAYS[d.ordinal()][nearest];
+            }
+            squares |= ray;
+        }
+        return squares;
+    }
+
+    /**
+     * Gets the squares whose pieces can block a rook or bishop, which are its
+     * rays without the last square of each, since a piece there blocks nothing
+     * @param square the square of the piece
+     * @param diagonal true for a bishop, false for a rook
+     * @return the mask
+     */
+    private static long mask(int square, boolean diagonal)
+    {
+        long mask = 0;
+        for (Direction d: DIRECTIONS)
+        {
+            long ray = RAYS[d.ordinal()][square];
+            if (d.isDiagonal()!=diagonal||ray==0)
+                continue;
+            int last = d.getSquareStep()>0 ? 63-Long.numberOfLeadingZeros(ray)
+                    : Long.numberOfTrailingZeros(ray);
+            mask |= ray&~(1L<<last);
+        }
+        return mask;
+    }
+
+    /**
+     * Makes the attacks table of a square, going through every arrangement of
+     * pieces on the mask and putting its attacks where the magic sends it
+     * @param square the square
+     * @param mask the squares whose pieces matter
+     * @param magic the magic number of the square
+     * @param shift how far to shift the product down
+     * @param diagonal true for a bishop, false for a rook
+     * @return the table
+     */
+    private static long[] fill(int square, long mask, long magic, int shift, boolean diagonal)
+    {
+        long[] table = new long[1<<Long.bitCount(mask)];
+        long subset = 0;
+        do //every subset of the mask, the carry-rippler way
+        {
+            table[(int)((subset*magic)>>>shift)] = slides(square,subset,diagonal);
+            subset = (subset-mask)&mask;
+        }
+        while (subset!=0);
+        return table;
+    }
+
+}
@@ -1,51 +1,90 @@
 package chess;
 
-import java.awt.GridLayout;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.DisplayMode;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.VolatileImage;
 import java.util.ArrayList;
 import javax.swing.ButtonGroup;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.table.DefaultTableModel;
 
 /**
  * @author Michael Miller
- * This is the jpanel where all the squares reside and 
- * where most of the work in the program is done for 
- * interactions between pieces and such.
+ * This is the jpanel where all the squares reside. The rules themselves
+ * live in Position, so this is just the view of one position plus the
+ * things only the user cares about, like what is selected and the notation.
+ *
+ * The whole board is painted here on one canvas. The empty board, the
+ * colors of the squares, their outlines and the coordinates, never changes
+ * between moves, so it is drawn once into a VolatileImage, which the
+ * graphics card can keep, and copied under the pieces and highlights on
+ * every paint. Moves slide the piece across the board, a frame each time
+ * the screen refreshes, repainting just the box around the sliding piece.
  */
 
+
 public class Board extends JPanel
 {
     private final Square[][] squares;
+    private final Position position;
+    private final ArrayList<Square> selected; //the squares highlighted, so only they get cleared
     private Piece firstSelected;
-    private final boolean mainBoard;
-    private int turn;
-    private int fiftyMove;
-    private ArrayList<String> positions;
     private ChessFrame frame;
+    private PieceColor computerColor;
+    private long computerMillis;
+    private ParallelSearch engine;
+    private boolean thinking;
+    private VolatileImage layer; //the empty board
+    private final Rectangle clip; //reused on each paint
+    private final Timer animator;
+    private int slideFrom = -1; //the square the sliding piece left, or -1 if nothing is sliding
+    private int slideTo;
+    private long slideStart;
+    private int slideX; //where the sliding piece was last painted
+    private int slideY;
+    
+    public static final int SLIDE_MILLIS = 180; //how long a piece takes to slide across the board
+    public static final int DEFAULT_REFRESH_RATE = 60; //frames a second, if the screen won't say
+    private static final BasicStroke OUTLINE = new BasicStroke(2);
+    private static final Font COORDINATE_FONT = new Font("SansSerif",Font.BOLD,11);
     
     //move types
-    public static final int ILLEGAL_MOVE = -1;
-    public static final int KNIGHT_MOVE = 0;
-    public static final int ROOK_MOVE = 1;
-    public static final int BISHOP_MOVE = 2;
-    public static final int QUEEN_MOVE = 3;
-    public static final int KING_MOVE = 4;
-    public static final int KINGSIDE_CASTLING = 5;
-    public static final int QUEENSIDE_CASTLING = 10;
-    public static final int PAWN_MOVE = 6;
-    public static final int PAWN_FIRST_MOVE = 7;
-    public static final int PAWN_CAPTURE = 8;
-    public static final int EN_PASSANT = 9;
+    public static final int ILLEGAL_MOVE = Position.ILLEGAL_MOVE;
+    public static final int KNIGHT_MOVE = Position.KNIGHT_MOVE;
+    public static final int ROOK_MOVE = Position.ROOK_MOVE;
+    public static final int BISHOP_MOVE = Position.BISHOP_MOVE;
+    public static final int QUEEN_MOVE = Position.QUEEN_MOVE;
+    public static final int KING_MOVE = Position.KING_MOVE;
+    public static final int KINGSIDE_CASTLING = Position.KINGSIDE_CASTLING;
+    public static final int QUEENSIDE_CASTLING = Position.QUEENSIDE_CASTLING;
+    public static final int PAWN_MOVE = Position.PAWN_MOVE;
+    public static final int PAWN_FIRST_MOVE = Position.PAWN_FIRST_MOVE;
+    public static final int PAWN_CAPTURE = Position.PAWN_CAPTURE;
+    public static final int EN_PASSANT = Position.EN_PASSANT;
     
     //draw types
-    public static final int STALEMATE = 0;
-    public static final int THREE_MOVE = 1;
-    public static final int FIFTY_MOVE = 2;
-    public static final int TWO_KINGS = 3;
-    public static final int NOT_DRAW = -1;
+    public static final int STALEMATE = Position.STALEMATE;
+    public static final int THREE_MOVE = Position.THREE_MOVE;
+    public static final int FIFTY_MOVE = Position.FIFTY_MOVE;
+    public static final int TWO_KINGS = Position.TWO_KINGS;
+    public static final int NOT_DRAW = Position.NOT_DRAW;
     
     /**
      * This constructor takes in some pieces and puts them in
@@ -55,56 +94,303 @@ public class Board extends JPanel
      */
     public Board(ArrayList<Piece> pieces)
     {
+        this(new Position(pieces));
+    }
+    
+    /**
+     * This makes a board for a position written as FEN or as the string
+     * Position's toString makes
+     * @param position the position written out
+     */
+    public Board(String position)
+    {
+        this(Fen.isFen(position) ? Fen.parse(position) : new Position(position));
+    }
+    
+    /**
+     * This makes the squares that display a position
+     * @param p the position being shown and played on
+     */
+    public Board(Position p)
+    {
+        position = p;
         squares = new Square[Chess.ROWS][Chess.COLUMNS];
-        setLayout(new GridLayout(Chess.ROWS,Chess.COLUMNS,0,0));
+        selected = new ArrayList<>();
+        clip = new Rectangle();
         firstSelected = null;
-        mainBoard=true;
-        turn = 0;
-        fiftyMove = 0;
         for (int i = 0; i < Chess.ROWS; i++)
             for (int j = 0; j < Chess.COLUMNS; j++)
-            {
                 squares[i][j] = new Square(i,j,this);
-                for (Piece p: pieces)
-                    if (p.getOrigin().equals(new Location(i,j)))
-                        squares[i][j].setPiece(p);
-                add(squares[i][j]);
+        addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent event)
+            {
+                Square square = squareAt(event.getX(),event.getY());
+                if (square!=null)
+                    square.click();
+            }
+        });
+        setToolTipText(""); //turns on tooltips, which getToolTipText works out
+        animator = new Timer(1000/DEFAULT_REFRESH_RATE,new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent event)
+            {
+                slide();
             }
-        positions = new ArrayList<>();
-        positions.add(toString());
+        });
     }
     
-    public Board(String position)
+    /**
+     * Gets the square at a point on the board
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the square or null if the point is past the edge of the squares
+     */
+    public Square squareAt(int x, int y)
     {
-        this(Chess.stringToPieces(getPiecePositionFromPos(position)));
-        turn = getTurnFromPos(position);
-        fiftyMove = getFiftyMoveFromPos(position);
-        if (turn<20)
-            frame.setOptionVisibility(false);
+        int width = getWidth()/Chess.COLUMNS;
+        int height = getHeight()/Chess.ROWS;
+        if (width<=0||height<=0)
+            return null;
+        int row = y/height;
+        int col = x/width;
+        if (x<0||y<0||row>=Chess.ROWS||col>=Chess.COLUMNS)
+            return null;
+        return squares[row][col];
     }
     
     /**
-     * This is the constructor that takes in a Board and copies everything about
-     * that board into a new board, used for figuring out legality of moves
-     * @param a 
+     * Gets the name of the square under the mouse, like e4
+     * @param event where the mouse is
+     * @return the name or null if it isn't over a square
      */
-    public Board(Board a)
+    @Override
+    public String getToolTipText(MouseEvent event)
     {
-        mainBoard=false;
-        squares = new Square[Chess.ROWS][Chess.COLUMNS];
-        setLayout(new GridLayout(Chess.ROWS,Chess.COLUMNS,0,0));
-        if (a.firstSelected==null)
-            firstSelected=null;
-        else
-            firstSelected = new Piece(a.firstSelected);
-        for (int i = 0; i < Chess.ROWS; i++)
-            for (int j = 0; j < Chess.COLUMNS; j++)
-                squares[i][j] = new Square(a.squares[i][j]);
+        Square square = squareAt(event.getX(),event.getY());
+        return square==null ? null : Location.LocToNot(square.getLoc());
+    }
+    
+    /**
+     * Paints the part of the board that needs it: the empty board, then the
+     * highlights and pieces of the squares in that part, then the piece
+     * sliding across if there is one
+     * @param g the graphics
+     */
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        Graphics2D g2 = (Graphics2D)g;
+        paintLayer(g2);
+        int width = getWidth()/Chess.COLUMNS;
+        int height = getHeight()/Chess.ROWS;
+        if (width<=0||height<=0)
+            return;
+        clip.setBounds(0,0,getWidth(),getHeight());
+        g2.getClipBounds(clip); //left as the whole board if there's no clip
+        int firstRow = Math.max(0,clip.y/height);
+        int lastRow = Math.min(Chess.ROWS-1,(clip.y+clip.height-1)/height);
+        int firstCol = Math.max(0,clip.x/width);
+        int lastCol = Math.min(Chess.COLUMNS-1,(clip.x+clip.width-1)/width);
+        for (int row = firstRow; row <= lastRow; row++)
+            for (int col = firstCol; col <= lastCol; col++)
+                squares[row][col].paint(g2,col*width,row*height,width,height,
+                        slideFrom<0||slideTo!=row*Chess.COLUMNS+col);
+        if (slideFrom>=0)
+        {
+            Piece piece = getPiece(Move.location(slideTo));
+            if (piece!=null)
+            {
+                slidePosition(width,height);
+                int subWidth = width*5/6;
+                int subHeight = height*5/6;
+                g2.drawImage(Sprites.getImage(piece.getType(),piece.getColor(),subWidth,subHeight),
+                        slideX+(width-subWidth)/2,slideY+(height-subHeight)/2,null);
+            }
+        }
+    }
+    
+    /**
+     * Copies the picture of the empty board onto the graphics, drawing it
+     * again first if the board changed size or the graphics card lost it.
+     * If the board isn't on the screen yet it is just drawn straight on.
+     * @param g2 the graphics
+     */
+    private void paintLayer(Graphics2D g2)
+    {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        do
+        {
+            int state = VolatileImage.IMAGE_INCOMPATIBLE;
+            if (layer!=null&&layer.getWidth()==getWidth()&&layer.getHeight()==getHeight())
+                state = layer.validate(config);
+            if (state==VolatileImage.IMAGE_INCOMPATIBLE)
+            {
+                if (layer!=null)
+                    layer.flush();
+                layer = getWidth()>0&&getHeight()>0 ? createVolatileImage(getWidth(),getHeight()) : null;
+                if (layer==null)
+                {
+                    drawLayer(g2);
+                    return;
+                }
+                state = VolatileImage.IMAGE_RESTORED;
+            }
+            if (state==VolatileImage.IMAGE_RESTORED)
+            {
+                Graphics2D layerGraphics = layer.createGraphics();
+                drawLayer(layerGraphics);
+                layerGraphics.dispose();
+            }
+            g2.drawImage(layer,0,0,null);
+        }
+        while (layer.contentsLost());
+    }
+    
+    /**
+     * Draws the empty board: the squares in their colors with their outlines,
+     * and the files and ranks along the bottom and left edges
+     * @param g2 the graphics to draw with
+     */
+    private void drawLayer(Graphics2D g2)
+    {
+        g2.setColor(getBackground());
+        g2.fillRect(0,0,getWidth(),getHeight());
+        int width = getWidth()/Chess.COLUMNS;
+        int height = getHeight()/Chess.ROWS;
+        if (width<=0||height<=0)
+            return;
+        for (int row = 0; row < Chess.ROWS; row++)
+            for (int col = 0; col < Chess.COLUMNS; col++)
+            {
+                g2.setColor(squares[row][col].getColor());
+                g2.fillRect(col*width,row*height,width,height);
+            }
+        g2.setStroke(OUTLINE);
+        g2.setColor(Color.BLACK);
+        for (int row = 0; row <= Chess.ROWS; row++)
+            g2.drawLine(0,row*height,Chess.COLUMNS*width,row*height);
+        for (int col = 0; col <= Chess.COLUMNS; col++)
+            g2.drawLine(col*width,0,col*width,Chess.ROWS*height);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(COORDINATE_FONT);
+        FontMetrics metrics = g2.getFontMetrics();
+        int ascent = metrics.getAscent();
+        for (int row = 0; row < Chess.ROWS; row++) //ranks down the left, in the other square color
+        {
+            g2.setColor(squares[row][1].getColor());
+            g2.drawString(String.valueOf(Chess.ROWS-row),3,row*height+ascent+1);
+        }
+        for (int col = 0; col < Chess.COLUMNS; col++) //files along the bottom
+        {
+            char file = (char)('a'+col);
+            g2.setColor(squares[Chess.ROWS-1][(col+1)%Chess.COLUMNS].getColor());
+            g2.drawString(String.valueOf(file),(col+1)*width-metrics.charWidth(file)-3,Chess.ROWS*height-4);
+        }
+    }
+    
+    /**
+     * Starts a piece sliding from one square to another. A piece still
+     * sliding from the move before just lands.
+     * @param from the square it slides from, row*8+col
+     * @param to the square it slides to, where the piece already is
+     */
+    private void startSlide(int from, int to)
+    {
+        if (slideFrom>=0)
+            endSlide();
+        slideFrom = from;
+        slideTo = to;
+        slideStart = System.nanoTime();
+        int width = getWidth()/Chess.COLUMNS;
+        int height = getHeight()/Chess.ROWS;
+        slidePosition(width,height);
+        animator.setDelay(1000/refreshRate());
+        animator.start();
+    }
+    
+    /**
+     * Moves the sliding piece along, a frame at a time, repainting just the
+     * box that covers where it was and where it is now
+     */
+    private void slide()
+    {
+        if (slideFrom<0)
+        {
+            animator.stop();
+            return;
+        }
+        int width = getWidth()/Chess.COLUMNS;
+        int height = getHeight()/Chess.ROWS;
+        int oldX = slideX;
+        int oldY = slideY;
+        if (System.nanoTime()-slideStart>=SLIDE_MILLIS*1000000L)
+        {
+            endSlide();
+            return;
+        }
+        slidePosition(width,height);
+        int x = Math.min(oldX,slideX);
+        int y = Math.min(oldY,slideY);
+        repaint(x,y,Math.abs(slideX-oldX)+width,Math.abs(slideY-oldY)+height);
+    }
+    
+    /**
+     * Lands the sliding piece on its square
+     */
+    private void endSlide()
+    {
+        animator.stop();
+        int width = getWidth()/Chess.COLUMNS;
+        int height = getHeight()/Chess.ROWS;
+        repaint(slideX,slideY,width,height);
+        repaintSquare(slideTo/Chess.COLUMNS,slideTo%Chess.COLUMNS);
+        slideFrom = -1;
+    }
+    
+    /**
+     * Works out where the sliding piece is now, slowing down as it lands,
+     * into slideX and slideY
+     * @param width the width of a square
+     * @param height the height of a square
+     */
+    private void slidePosition(int width, int height)
+    {
+        double t = Math.min(1,(System.nanoTime()-slideStart)/(SLIDE_MILLIS*1e6));
+        t = 1-(1-t)*(1-t);
+        int fromX = slideFrom%Chess.COLUMNS*width;
+        int fromY = slideFrom/Chess.COLUMNS*height;
+        slideX = fromX+(int)Math.round((slideTo%Chess.COLUMNS*width-fromX)*t);
+        slideY = fromY+(int)Math.round((slideTo/Chess.COLUMNS*height-fromY)*t);
+    }
+    
+    /**
+     * Gets how many times a second the screen the board is on refreshes
+     * @return the refresh rate, or DEFAULT_REFRESH_RATE if it isn't known
+     */
+    private int refreshRate()
+    {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config==null)
+            return DEFAULT_REFRESH_RATE;
+        int rate = config.getDevice().getDisplayMode().getRefreshRate();
+        return rate==DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
+    }
+    
+    /**
+     * This gets the position this board is showing
+     * @return position the position
+     */
+    public Position getPosition()
+    {
+        return position;
     }
     
     public void setTurn(int t)
     {
-        turn=t;
+        position.setTurn(t);
     }
     
     /**
@@ -128,7 +414,7 @@ public class Board extends JPanel
     
     public void setFiftyMove(int f)
     {
-        fiftyMove=f;
+        position.setFiftyMove(f);
     }
     
     /**
@@ -156,10 +442,7 @@ public class Board extends JPanel
      */
     public Piece getPiece(Location loc)
     {
-        if (!loc.isValid())
-            return null;
-        Square s = getSquare(loc);
-        return s.getPiece();
+        return position.getPiece(loc);
     }
     
     /**
@@ -168,7 +451,7 @@ public class Board extends JPanel
      */
     public int getTurn()
     {
-        return turn;
+        return position.getTurn();
     }
     
     /**
@@ -188,7 +471,7 @@ public class Board extends JPanel
      */
     public void setPiece(Piece p, Location loc)
     {
-        squares[loc.getRow()][loc.getCol()].setPiece(p);
+        position.setPiece(p,loc);
     }
     
     /**
@@ -198,123 +481,95 @@ public class Board extends JPanel
      */
     public Location getLocation(Piece p)
     {
-        if (p==null)
-            return null;
-        for (Square[] s1: squares)
-        {
-            for (Square s: s1)
-            {
-                Piece p1 = s.getPiece();
-                if (p1!=null && p1.equals(p))
-                    return s.getLoc();
-            }
-        }
-        return null;
+        return position.getLocation(p);
     }
     
     /**
-     * This gets a piece at a given location and removes it from that location
-     * @param loc the location of the piece
-     * @return the piece removed
+     * This moves a piece to a location where it can move to, asking the user
+     * what to promote to if a pawn gets to the end
+     * @param a the location of the piece
+     * @param b the destination
+     * @return whether the move was made, false if it isn't legal
      */
-    private Piece removePiece(Location loc)
+    public boolean movePiece(Location a, Location b)
     {
-        Square s = getSquare(loc);
-        return s.removePiece();
+        Type promotion = null;
+        if (position.isPromotion(a,b))
+            promotion = promotePawn();
+        return movePiece(a,b,promotion);
     }
     
     /**
-     * This moves a piece to a location where it can move to
+     * This moves a piece to a location where it can move to and notates it.
+     * A move the position won't make changes nothing, not the notation, the
+     * clock or the moves that can be undone.
      * @param a the location of the piece
      * @param b the destination
+     * @param promotion what a pawn getting to the end becomes
+     * @return whether the move was made
      */
-    public void movePiece(Location a, Location b)
+    private boolean movePiece(Location a, Location b, Type promotion)
     {
-        Square s1 = getSquare(a);
-        Square s2 = getSquare(b);
-        Piece p = s1.getPiece();
+        Piece p = getPiece(a);
         if (p==null)
-            return;
-        int moveType = canMoveTo(p,b);
+            return false;
         boolean taking = getPiece(b)!=null;
-        boolean fiftyMoveBreak = getPiece(b)!=null||p.getType()==Type.PAWN;
-        s2.setPiece(s1.removePiece());
-        p.setHasMoved(true);
-        if (p.getType()==Type.PAWN)
-        {
-            if (mainBoard&&((p.white()&&getLocation(p).getRow()==0)
-                || !p.white()&&getLocation(p).getRow()==7))
-                    promotePawn(p);
-            else if (moveType==EN_PASSANT)
-            {
-                int row = a.getRow();
-                int col = b.getCol();
-                removePiece(new Location(row,col));
-                taking = true;
-            }
-        }
-        else if (moveType==KINGSIDE_CASTLING||moveType==QUEENSIDE_CASTLING)
+        int moveType = position.movePiece(a,b,promotion);
+        if (moveType==ILLEGAL_MOVE)
+            return false;
+        if (moveType==EN_PASSANT)
+            taking = true;
+        notateMove(p,b,moveType,taking);
+        frame.getSide().turnChanged();
+        repaintMove(Move.create(Move.square(a),Move.square(b),moveType,promotion),false);
+        return true;
+    }
+    
+    /**
+     * Repaints just the squares a move changes: where the piece was and
+     * went, the rook when castling and the pawn taken en passant. It is the
+     * same squares whether the move was made or taken back. The piece that
+     * moved slides over from where it was.
+     * @param move the move, packed like Move does
+     * @param undone whether the move was taken back rather than made
+     */
+    private void repaintMove(int move, boolean undone)
+    {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int row = to/Chess.COLUMNS;
+        int col = to%Chess.COLUMNS;
+        repaintSquare(from/Chess.COLUMNS,from%Chess.COLUMNS);
+        repaintSquare(row,col);
+        if (undone)
+            startSlide(to,from);
+        else
+            startSlide(from,to);
+        int type = Move.type(move);
+        if (type==KINGSIDE_CASTLING)
         {
-            Location rookLoc;
-            Location rookDest;
-            if (moveType==KINGSIDE_CASTLING)
-            {
-                rookLoc = b.farther(Direction.EAST);
-                rookDest = b.farther(Direction.WEST);
-            }
-            else
-            {
-                rookLoc = new Location(b.getRow(),b.getCol()-2);
-                rookDest = b.farther(Direction.EAST);
-            }
-            //movePiece(getLocation(rook),rookDest);
-            getSquare(rookDest).setPiece(removePiece(rookLoc)); //moves the rook
+            repaintSquare(row,col+1);
+            repaintSquare(row,col-1);
         }
-        if (mainBoard)
+        else if (type==QUEENSIDE_CASTLING)
         {
-            turn++;
-            if (fiftyMoveBreak)
-                fiftyMove= 0;
-            else fiftyMove++;
-        }
-        for (Piece piece: getPieces())
-            piece.setHasJustMoved(false);
-        p.setHasJustMoved(true);
-        if (mainBoard)
-        {
-            positions.add(toString());
-            
-            //this is all for the notation on the side
-            notateMove(p,b,moveType,taking);
-            /*JTable not = frame.getNotation();
-            DefaultTableModel d = (DefaultTableModel)not.getModel();
-            String notation;
-            PieceColor color = p.getColor();
-            if (color==PieceColor.WHITE)
-                notation = turn/2+1+". "; //the turn number first, on the left
-            else notation = "";
-            if (moveType==QUEENSIDE_CASTLING)
-                notation += "0-0-0";
-            else if (moveType==KINGSIDE_CASTLING)
-                notation += "0-0";
-            else //normal move
-            {
-                if (p.getType()!=Type.PAWN)
-                    notation+=p.getType().toNotation(); //the type of piece (K,N,R,etc)
-                if (taking)
-                    notation+="x"; //this is if the move involves taking
-                notation+=Location.LocToNot(b);
-            }
-            if (checkmate(colorGoing())) //notates # for checkmate
-                notation+="#";
-            else if (inCheck(colorGoing())) //notates + for check
-                notation+="+";
-            
-            if (color==PieceColor.WHITE)
-                d.addRow(new Object[]{notation,""});
-            else 
-                d.setValueAt(notation, (turn-1)/2, 1);*/
+            repaintSquare(row,col-2);
+            repaintSquare(row,col+1);
         }
+        else if (type==EN_PASSANT)
+            repaintSquare(from/Chess.COLUMNS,col);
+    }
+    
+    /**
+     * Repaints the part of the board one square takes up
+     * @param row the row of the square
+     * @param col the col of the square
+     */
+    public void repaintSquare(int row, int col)
+    {
+        int width = getWidth()/Chess.COLUMNS;
+        int height = getHeight()/Chess.ROWS;
+        repaint(col*width,row*height,width,height);
     }
     
     private void notateMove(Piece p, Location loc, int moveType, boolean taking)
@@ -323,6 +578,7 @@ public class Board extends JPanel
             DefaultTableModel d = (DefaultTableModel)not.getModel();
             String notation;
             PieceColor color = p.getColor();
+            int turn = getTurn();
             if (color==PieceColor.WHITE)
                 notation = turn/2+1+". "; //the turn number first, on the left
             else notation = "";
@@ -338,9 +594,10 @@ public class Board extends JPanel
                     notation+="x"; //this is if the move involves taking
                 notation+=Location.LocToNot(loc);
             }
-            if (checkmate(colorGoing())) //notates # for checkmate
+            GameStatus status = getStatus();
+            if (status.isCheckmate()) //notates # for checkmate
                 notation+="#";
-            else if (inCheck(colorGoing())) //notates + for check
+            else if (status.isCheck()) //notates + for check
                 notation+="+";
             
             if (color==PieceColor.WHITE)
@@ -351,10 +608,10 @@ public class Board extends JPanel
     
     /**
      * Allows the user to choose what to promote the pawn to,
-     * given that it can be promoted and all that, then promotes it.
-     * @param p the pawn
+     * given that it can be promoted and all that.
+     * @return the type the pawn becomes
      */
-    private void promotePawn(Piece p)
+    private Type promotePawn()
     {
         JRadioButton knight = new JRadioButton("Knight");
         JRadioButton bishop = new JRadioButton("Bishop");
@@ -369,30 +626,164 @@ public class Board extends JPanel
         JOptionPane.showConfirmDialog(null,
                 buttons,"Choose what the pawn promotes to",
                 JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE);
-        Type type = Type.PAWN;
+        Type type = Type.QUEEN;
         for (JRadioButton button: buttons)
             if (button.isSelected())
                 for (Type t: Type.values())
                     if (t.toString().equals(button.getText()))
                         type = t;
-        p.setType(type);
+        return type;
     }
     
     /**
-     * gets all the locations on the board
-     * @return the locations on the board
+     * Lets the computer play one of the colors
+     * @param color the color the computer plays, or null for nobody
+     * @param millis how long it gets to think about each move
      */
-    public ArrayList<Location> getLocations()
+    public void setComputer(PieceColor color, long millis)
+    {
+        computerColor = color;
+        computerMillis = millis;
+        if (color!=null&&engine==null)
+            engine = new ParallelSearch(); //keeps its table and threads from move to move
+    }
+    
+    /**
+     * Determines whether it is the computer's turn to move
+     * @return whether the color going is played by the computer
+     */
+    public boolean isComputerTurn()
+    {
+        return computerColor!=null && colorGoing()==computerColor;
+    }
+    
+    /**
+     * Determines whether the computer is busy thinking about a move
+     * @return whether it is thinking
+     */
+    public boolean isThinking()
     {
-        ArrayList<Location> locs = new ArrayList<>();
-        for (int row = 0; row < squares.length; row++)
+        return thinking;
+    }
+    
+    /**
+     * If it is the computer's turn, this has it think about its move on
+     * another thread on a copy of the position, then plays the move here
+     * once it has one
+     */
+    public void computerMove()
+    {
+        if (!isComputerTurn()||thinking)
+            return;
+        thinking = true;
+        final Position copy = new Position(position);
+        ChessClock clock = frame.getSide().getClock();
+        final long millis = clock==null ? computerMillis
+                : Math.min(computerMillis,clock.getMoveTime(computerColor));
+        new SwingWorker<Integer,Void>()
         {
-            for (int col = 0; col < squares[0].length; col++)
+            @Override
+            protected Integer doInBackground()
             {
-                locs.add(new Location(row,col));
+                return engine.search(copy,Search.MAX_PLY,millis,0);
             }
+            
+            @Override
+            protected void done()
+            {
+                thinking = false;
+                int move;
+                try
+                {
+                    move = get();
+                }
+                catch (Exception ex)
+                {
+                    return;
+                }
+                if (move==Move.NONE) //the game is already over
+                    return;
+                if (!position.isLegal(move)) //the position changed while it was thinking
+                {
+                    computerMove();
+                    return;
+                }
+                if (!movePiece(Move.location(Move.from(move)),Move.location(Move.to(move)),
+                        Move.promotion(move)))
+                    return;
+                setFirstSelected(null);
+                deselectSquares();
+                reportMove();
+                checkForDraw();
+                if (getTurn()>=20)
+                    frame.setOptionVisibility(true);
+            }
+        }.execute();
+    }
+    
+    /**
+     * Tells the players about checkmate, which ends the game, or check
+     */
+    public void reportMove()
+    {
+        GameStatus status = getStatus();
+        if (status.isCheckmate()) //informs of checkmate
+        {
+            String message;
+            if (status.getColorGoing()==PieceColor.WHITE)
+                message = "Checkmate! Black Wins!";
+            else
+                message = "Checkmate! White Wins!";
+            JOptionPane.showMessageDialog(null,message);
+            System.exit(0);
+        }
+        else if (status.isCheck()) //informs of check
+        {
+            PieceColor color = status.getColorGoing();
+            JOptionPane.showMessageDialog(null,color+" is in check!");
         }
-        return locs;
+    }
+    
+    /**
+     * Tells the players if the game is a draw, which ends the game
+     */
+    public void checkForDraw()
+    {
+        int draw = getStatus().getDraw();
+        if (draw!=NOT_DRAW)//checks for a draw
+            {
+                String message;
+                if (draw==STALEMATE)
+                    message = "Stalemate! Draw!";
+                else if (draw==THREE_MOVE)
+                    message = "Three Turn Repetition! Draw!";
+                else if (draw==TWO_KINGS)
+                    message = "No mating material! Draw!";
+                else //fifty move draw
+                    message = "You have gone fifty moves without taking or\n"
+                            + "moving a pawn. The game is a draw.";
+                JOptionPane.showMessageDialog(null,message);
+                System.exit(0);
+            }
+    }
+    
+    /**
+     * Gets the legal moves, check and whether the game is over, which are
+     * only worked out once after each move
+     * @return the status of the position
+     */
+    public GameStatus getStatus()
+    {
+        return position.getStatus();
+    }
+    
+    /**
+     * gets all the locations on the board
+     * @return the locations on the board
+     */
+    public ArrayList<Location> getLocations()
+    {
+        return position.getLocations();
     }
     
     /**
@@ -402,13 +793,7 @@ public class Board extends JPanel
      */
     public ArrayList<Location> getAdjacentLocations(Location loc)
     {
-        ArrayList<Location> locations = new ArrayList<>();
-        for (Direction d: Direction.values())
-        {
-            if (loc.farther(d).isValid())
-                locations.add(loc.farther(d));
-        }
-        return locations;
+        return position.getAdjacentLocations(loc);
     }
     
     /**
@@ -418,14 +803,7 @@ public class Board extends JPanel
      */
     public ArrayList<Location> getEmptyAdjacentLocations(Location loc)
     {
-        ArrayList<Location> locations = getAdjacentLocations(loc);
-        for (Direction d: Direction.values())
-        {
-             Location temp = loc.farther(d);
-             if (getPiece(temp)==null)
-                locations.add(temp);
-        }
-        return locations;
+        return position.getEmptyAdjacentLocations(loc);
     }
     
     /**
@@ -443,17 +821,7 @@ public class Board extends JPanel
      */
     public ArrayList<Piece> getPieces()
     {
-        ArrayList<Piece> pieces = new ArrayList<>();
-        for (Square[] s1: squares)
-        {
-            for (Square s: s1)
-            {
-                Piece p = s.getPiece();
-                if (p!=null)
-                    pieces.add(p);
-            }
-        }
-        return pieces;
+        return position.getPieces();
     }
     
     /**
@@ -463,64 +831,7 @@ public class Board extends JPanel
      */
     public ArrayList<Piece> getPieces(PieceColor color)
     {
-        ArrayList<Piece> pieces = new ArrayList<>();
-        for (Square[] s1: squares)
-        {
-            for (Square s: s1)
-            {
-                Piece p = s.getPiece();
-                if (p!=null&&p.getColor()==color)
-                    pieces.add(p);
-            }
-        }
-        return pieces;
-    }
-    
-    /**
-     * This stuff returns the set of locations the piece could conceivably move
-     * to.
-     * @param origin the location of the piece
-     * @return the max range of the locations the piece can move to on the board.
-     */
-    private ArrayList<Location> getCandidateLocations(Location origin)
-    {
-        ArrayList<Location> locs = new ArrayList<>();
-        Piece p = getPiece(origin);
-        if (p==null)
-            return locs;
-        switch (p.getType())
-        {
-            case QUEEN:case ROOK:case BISHOP:
-            locs = getLocations();break;
-            case KNIGHT:case PAWN:case KING:
-            locs = getLocationsWithin(getLocation(p),2);
-        }
-        return locs;
-    }
-    
-    /**
-     * This gets all the locations within n squares of loc
-     * @param loc the starting point
-     * @param n the radius of the search
-     * @return the locations within n of loc
-     */
-    private ArrayList<Location> getLocationsWithin(Location loc, int n)
-    {
-        ArrayList<Location> locs = new ArrayList<>();
-        if (loc==null||!loc.isValid()||n<=0)
-            return locs;
-        int thisRow = loc.getRow();
-        int thisCol = loc.getCol();
-        for (int row=thisRow-n;row<=thisRow+n;row++)
-        {
-            for (int col=thisCol-n;col<=thisCol+n;col++)
-            {
-                Location temp = new Location(row,col);
-                if (temp.isValid())
-                    locs.add(temp);
-            }
-        }
-        return locs;
+        return position.getPieces(color);
     }
     
     /**
@@ -530,29 +841,7 @@ public class Board extends JPanel
      */
     public ArrayList<Location> getMoveLocations(Piece p)
     {
-        Location loc = getLocation(p);
-        ArrayList<Location> locs = getCandidateLocations(loc);
-        if (p==null)
-            return null;
-        for (int i = 0; i < locs.size(); i++)
-        {
-            if (canMoveTo(p,locs.get(i))==ILLEGAL_MOVE)
-            {
-                locs.remove(i);
-                i--;
-            }
-            else
-            {
-                Board b = new Board(this);
-                b.movePiece(loc,locs.get(i));
-                if (b.findKing(p.getColor())!=null&&b.inCheck(p.getColor()))
-                {
-                    locs.remove(i);
-                    i--;
-                }
-            }
-        }
-        return locs;
+        return position.getMoveLocations(p);
     }
     
     /**
@@ -564,200 +853,34 @@ public class Board extends JPanel
         if (locs==null||locs.isEmpty())
             return;
         for (Location loc: locs)
-            getSquare(loc).setSelected(true);
-    }
-    
-    /**
-     * Determines if a piece can move to a destination regardless of whether
-     * that results in a check or not
-     * @param p the piece moving
-     * @param dest the location its going to
-     * @return whether or not p can go to dest
-     */
-    public int canMoveTo(Piece p, Location dest)
-    {
-        if (p==null||dest==null||!dest.isValid())
-            return ILLEGAL_MOVE;
-        Location loc = getLocation(p);
-        if (dest.equals(loc))
-            return ILLEGAL_MOVE;
-        int thisCol = loc.getCol();
-        int thisRow = loc.getRow();
-        int otherCol = dest.getCol();
-        int otherRow = dest.getRow();
-        int rowDiff = Math.abs(thisRow-otherRow);
-        int colDiff = Math.abs(thisCol-otherCol);
-        Piece other = getPiece(dest);
-        if (other!=null&&other.sameColor(p))
-            return ILLEGAL_MOVE;
-        switch (p.getType())
-        {
-            case KING:
-            if (rowDiff==0&&colDiff==2) //castling
-            {
-                if (p.hasMoved())
-                    return ILLEGAL_MOVE;
-                Piece rook = null;
-                Direction dir = null;
-                if (thisCol > otherCol) //queenside
-                {
-                    dir = Direction.WEST;
-                    rook = getPiece(new Location(thisRow,thisCol-4));
-                }
-                else //kingside
-                {
-                    dir = Direction.EAST;
-                    rook = getPiece(new Location(thisRow,thisCol+3));
-                }
-                if (rook==null||rook.getType()!=Type.ROOK||!p.sameColor(rook)||rook.hasMoved())
-                    return ILLEGAL_MOVE;
-                Location next = loc;
-                for (int i=thisCol; i!=getLocation(rook).getCol(); i=next.getCol())
-                {
-                    if ((!next.equals(loc)&&getPiece(next)!=null)||enemyCanAttack(p.getColor(),next))
-                        return ILLEGAL_MOVE;
-                    next = next.farther(dir);
-                }
-                if (thisCol > otherCol)
-                    return QUEENSIDE_CASTLING;
-                else return KINGSIDE_CASTLING;
-            }
-            else //normal king move
-                if (adjacent(loc,dest)
-                && (other==null || !p.sameColor(other)))
-                    return KING_MOVE;
-                else return ILLEGAL_MOVE;
-            
-            case PAWN:
-            if (rowDiff>2||rowDiff<1||colDiff>1||(rowDiff==2&&colDiff>0)
-            ||(p.white()&&otherRow>thisRow)||(!p.white()&&otherRow<thisRow))
-                return ILLEGAL_MOVE;
-            else if (rowDiff==2) //first move
-            {
-                if (p.hasMoved())
-                    return ILLEGAL_MOVE;
-                Location temp = loc.closerTo(dest);
-                if (getPiece(temp)==null&&other==null&&((p.white()&&thisRow==6)||(!p.white()&&thisRow==1)))
-                    return PAWN_FIRST_MOVE;
-                else return ILLEGAL_MOVE;
-            }
-            else if (colDiff==1 && other!=null) //taking
-            {
-                if (p.sameColor(other))
-                    return ILLEGAL_MOVE;
-                else return PAWN_CAPTURE;
-            }
-            else if (colDiff==1 && other==null) //en passant
-            {
-                int diff = otherCol-thisCol;
-                Location otherLoc = new Location(thisRow,thisCol+diff);
-                Piece otherPiece = getPiece(otherLoc);
-                if (otherPiece!=null&&otherPiece.hasJustMoved()
-                    &&otherPiece.getType()==Type.PAWN&&!otherPiece.sameColor(p))
-                    return EN_PASSANT;
-                else return ILLEGAL_MOVE;
-            }
-            else if (rowDiff==1) //normal move
-            {
-                if (other==null)
-                    return PAWN_MOVE;
-                else return ILLEGAL_MOVE;
-            }
-            break;
-            
-            case ROOK:case QUEEN: case BISHOP:case KNIGHT:
-            if (!canAttack(p,dest))
-                return ILLEGAL_MOVE;
-            else
-            {
-                switch (p.getType())
-                {
-                    case ROOK:return ROOK_MOVE;
-                    case QUEEN:return QUEEN_MOVE;
-                    case BISHOP:return BISHOP_MOVE;
-                    case KNIGHT:return KNIGHT_MOVE;
-                }
-            }
-        }
-        return ILLEGAL_MOVE; //will never happen
-    }
-    
-    /**
-     * checks if p can threaten to attack a certain square, regardless of whether 
-     * it can actually move there at the present.
-     * @param p the piece moving
-     * @param loc the location moving to
-     * @return whether or not p threatens loc
-     */
-    private boolean canAttack(Piece p, Location loc)
-    {
-        int thisRow = getLocation(p).getRow();
-        int thisCol = getLocation(p).getCol();
-        int otherRow = loc.getRow();
-        int otherCol = loc.getCol();
-        int rowDiff = Math.abs(otherRow-thisRow);
-        int colDiff = Math.abs(otherCol-thisCol);
-        switch (p.getType())
         {
-            case PAWN:
-            return rowDiff==1&&colDiff==1 &&
-                ((p.white()&&otherRow<thisRow)||(!p.white()&&otherRow>thisRow));
-            
-            case KING:
-            return adjacent(getLocation(p),loc);
-            
-            case KNIGHT:
-            return rowDiff>0 && colDiff>0 && rowDiff+colDiff==3;
-            
-            //rook, bishop, queen are identical, except for their preconditions
-            case ROOK:case BISHOP:case QUEEN:
-            if ((p.getType()==Type.ROOK&&rowDiff>0&&colDiff>0)
-                ||(p.getType()==Type.BISHOP&&rowDiff!=colDiff)
-                ||(p.getType()==Type.QUEEN&&rowDiff>0&&colDiff>0&&rowDiff!=colDiff))
-                return false;
-            Location next = getLocation(p).closerTo(loc);
-            while (!next.equals(loc))
-            {
-                if (getPiece(next)!=null) //checks for piece in the way
-                    return false;
-                next = next.closerTo(loc);
-            }
-            return true;
+            Square square = getSquare(loc);
+            if (!square.isSelected())
+                selected.add(square);
+            square.setSelected(true);
         }
-        return false; //will never happen because all piece types covered
     }
     
     /**
-     * Checks if an piece of the opposite color of color can attack a square.
-     * @param allyColor the color being attacked
-     * @param loc the location being attacked
-     * @return whether or not the opposite color can attack loc
+     * Deselects the squares that are selected, which repaints only them
      */
-    private boolean enemyCanAttack(PieceColor allyColor, Location loc)
+    public void deselectSquares()
     {
-        if (!loc.isValid())
-            return false;
-        for (Piece other: getPieces())
-        {
-            if (other.getColor()!=allyColor && canAttack(other,loc))
-                return true;
-        }
-        return false;
+        for (Square square: selected)
+            square.setSelected(false);
+        selected.clear();
     }
     
     /**
-     * Gets the king of a certain color or null if there is none
-     * @param color the color of the king
-     * @return the king
+     * Determines if a piece can move to a destination regardless of whether
+     * that results in a check or not
+     * @param p the piece moving
+     * @param dest the location its going to
+     * @return whether or not p can go to dest
      */
-    private Piece findKing(PieceColor color)
+    public int canMoveTo(Piece p, Location dest)
     {
-        for (Piece p: getPieces())
-        {
-            if (p.isKing() && p.getColor()==color)
-                return p;
-        }
-        return null;
+        return position.canMoveTo(p,dest);
     }
     
     /**
@@ -767,27 +890,17 @@ public class Board extends JPanel
      */
     public boolean inCheck(PieceColor color)
     {
-        Piece king = findKing(color);
-        if (king==null)
-            return false;
-        Location loc = getLocation(king);
-        return enemyCanAttack(color,loc);
+        return position.inCheck(color);
     }
     
     public boolean check()
     {
-        return inCheck(PieceColor.WHITE)||inCheck(PieceColor.BLACK);
+        return position.check();
     }
     
     public PieceColor inCheck()
     {
-        PieceColor white = PieceColor.WHITE;
-        PieceColor black = PieceColor.BLACK;
-        if (inCheck(white))
-            return white;
-        else if (inCheck(black))
-            return black;
-        else return null;
+        return position.inCheck();
     }
     
     /**
@@ -797,13 +910,7 @@ public class Board extends JPanel
      */
     public boolean checkmate(PieceColor color)
     {
-        Piece king = findKing(color);
-        if (king==null||!getMoveLocations(king).isEmpty()||!inCheck(color))
-            return false;
-        for (Piece p: getPieces(color))
-            if (!p.equals(king)&&!getMoveLocations(p).isEmpty())
-                return false;
-        return true;
+        return position.checkmate(color);
     }
     
     /**
@@ -812,23 +919,7 @@ public class Board extends JPanel
      */
     public boolean checkmate()
     {
-        return checkmate(PieceColor.BLACK)||checkmate(PieceColor.WHITE);
-    }
-    
-    /**
-     * Determines whether two locations are adjacent
-     * @param a the first location
-     * @param b the second location
-     * @return whether they are adjacent
-     */
-    private boolean adjacent(Location a, Location b)
-    {
-        for (Location loc: getAdjacentLocations(a))
-        {
-            if (loc.equals(b))
-                return true;
-        }
-        return false;
+        return position.checkmate();
     }
     
     /**
@@ -837,7 +928,7 @@ public class Board extends JPanel
      */
     public boolean gameOver()
     {
-        return checkmate()||draw()!=NOT_DRAW;
+        return position.gameOver();
     }
     
     /**
@@ -846,9 +937,7 @@ public class Board extends JPanel
      */
     public PieceColor colorGoing()
     {
-        if (turn%2==0)
-            return PieceColor.WHITE;
-        else return PieceColor.BLACK;
+        return position.colorGoing();
     }
     
     /**
@@ -857,37 +946,7 @@ public class Board extends JPanel
      */
     public int draw()
     {
-        //Lack of mating material draw
-        if (getPieces().size()<3)
-            return TWO_KINGS;
-        
-        //stalemate
-        PieceColor color = colorGoing();
-        if (inCheck(color))
-            return NOT_DRAW;
-        boolean draw = true;
-        for (Piece p: getPieces(color))
-            if (!getMoveLocations(p).isEmpty())
-                draw = false;
-        if (draw)
-            return STALEMATE;
-        
-        //Fifty move draw
-        if (fiftyMove>=100)
-            return FIFTY_MOVE;
-        
-        //three move repetition
-        String pos = positions.get(positions.size()-1);
-        int counter = 0;
-        for (String temp: positions)
-        {
-            if (temp.substring(4).equals(pos.substring(4)))
-                counter++;
-        }
-        if (counter>=3)
-            return THREE_MOVE;
-        
-        return NOT_DRAW;
+        return position.draw();
     }
     
     /**
@@ -895,22 +954,18 @@ public class Board extends JPanel
      */
     public void undoMove()
     {
-        positions.remove(positions.size()-1);
-        String position = positions.get(positions.size()-1);
-        ArrayList<Piece> pieces = Chess.stringToPieces(position.substring(4));
-        setTurn(Integer.parseInt(position.substring(0,2)));
-        setFiftyMove(Integer.parseInt(position.substring(2,4)));
-        for (int i = 0; i < Chess.ROWS; i++)
-            for (int j = 0; j < Chess.COLUMNS; j++)
-            {
-                squares[i][j].setPiece(null);
-                for (Piece p: pieces)
-                    if (p.getOrigin().equals(new Location(i,j)))
-                        squares[i][j].setPiece(p);
-            }
+        if (!position.canUndo())
+            return;
+        position.undoMove();
+        int move = position.getRedoMove();
+        if (move==Move.NONE) //read back out of the history, so anything could have changed
+            repaint();
+        else
+            repaintMove(move,true);
         setFirstSelected(null);
-        squares[0][0].deselectSquares();
-        if (getTurn()<20)
+        deselectSquares();
+        int turn = getTurn();
+        if (turn<20)
             frame.setOptionVisibility(false);
         
         DefaultTableModel d = (DefaultTableModel)frame.getNotation().getModel();
@@ -919,58 +974,48 @@ public class Board extends JPanel
         else
             d.removeRow((turn+1)/2);
         frame.getSide().getDrawBox().setSelected(false);
-        updateUI();
+        frame.getSide().turnChanged();
     }
     
     /**
-     * This gets the string representation of the board with all the pieces
-     * on it and is used to recreate positions and for three-move draw
-     * @return the string representation of the board
+     * This makes the last move that was undone again
      */
-    @Override
-    public final String toString()
+    public void redoMove()
     {
-        String str = formatInt(turn)+formatInt(fiftyMove);
-        //int counter = 0;
-        for (Square[] s1: getSquares())
-        {
-            for (Square s: s1)
-            {
-                if (!s.isEmpty())
-                {
-                    str+=""+s;
-                    //counter++;
-                    /*if (counter%4==0)
-                        str+="\n";*/
-                }
-            }
-        }
-        return str;
-    }
-    
-    private static String formatInt(int n)
-    {
-        if (n<10)
-            return "0"+n;
-        else return ""+n;
-    }
-    
-    private static int getTurnFromPos(String position)
-    {
-        if (position.length()<2)
-            System.out.println("For some reason, the board toString didn't get copied right");
-        return Integer.parseInt(position.substring(0,2));
+        int move = position.getRedoMove();
+        if (move==Move.NONE)
+            return;
+        Location a = Move.location(Move.from(move));
+        Location b = Move.location(Move.to(move));
+        Piece p = getPiece(a);
+        boolean taking = getPiece(b)!=null||Move.type(move)==EN_PASSANT;
+        position.redoMove();
+        notateMove(p,b,Move.type(move),taking);
+        frame.getSide().turnChanged();
+        setFirstSelected(null);
+        deselectSquares();
+        if (getTurn()>=20)
+            frame.setOptionVisibility(true);
+        repaintMove(move,false);
     }
     
-    private static int getFiftyMoveFromPos(String position)
+    /**
+     * Determines whether there is an undone move to make again
+     * @return whether redoMove would do anything
+     */
+    public boolean canRedo()
     {
-        if (position.length()<4)
-            System.out.println("For some reason, the board toString didn't get copied right");
-        return Integer.parseInt(position.substring(2,4));
+        return position.getRedoMove()!=Move.NONE;
     }
     
-    private static String getPiecePositionFromPos(String position)
+    /**
+     * This gets the string representation of the board with all the pieces
+     * on it and is used to recreate positions and for three-move draw
+     * @return the string representation of the board
+     */
+    @Override
+    public final String toString()
     {
-        return position.substring(4);
+        return position.toString();
     }
-}
\ No newline at end of file
+}
@@ -69,13 +69,13 @@ public final class Chess
             i++;
             type = Type.typeOf(str.charAt(i));//type
             i++;
-            hasMoved = str.charAt(i)=='t';//hasMoved
-            i++;
-            if (type==Type.PAWN)//hasJustMoved
+            if (type==Type.PAWN)//hasJustMoved, which Piece.toString writes first
             {
                 hasJustMoved = str.charAt(i)=='t';
                 i++;
             }
+            hasMoved = str.charAt(i)=='t';//hasMoved
+            i++;
             //loc
             int row = Integer.parseInt(str.substring(i,i+1));
             i++;
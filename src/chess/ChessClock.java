@@ -0,0 +1,209 @@
+package chess;
+
+/**
+ * The time each player has left, kept with System.nanoTime so it can't be
+ * thrown off by the computer's clock being changed. It knows nothing about
+ * the screen: the side panel shows it, and the computer or a server can ask
+ * it how much time a player has from any thread.
+ *
+ * The time added each move works one of three ways. With FISCHER the bonus
+ * is added after every move. With BRONSTEIN the time used on a move is given
+ * back after it, up to the bonus. With SIMPLE_DELAY the clock waits for the
+ * bonus at the start of every move before it starts counting down. A bonus
+ * of 0 is sudden death whatever the mode.
+ */
+public class ChessClock
+{
+    //modes
+    public static final int FISCHER = 0;
+    public static final int BRONSTEIN = 1;
+    public static final int SIMPLE_DELAY = 2;
+    public static final String[] MODE_NAMES = {"Increment","Bronstein delay","Simple delay"};
+
+    public static final int MOVES_TO_GO = 30; //how many moves the time is split over when planning a move
+
+    private final long[] remaining; //nanoseconds, not counting the move going on
+    private final long bonus;
+    private final int mode;
+    private PieceColor running; //null when stopped
+    private long moveStart;
+
+    /**
+     * Makes a stopped clock
+     * @param millis the time each player starts with
+     * @param bonusMillis the increment or delay
+     * @param m FISCHER, BRONSTEIN or SIMPLE_DELAY
+     */
+    public ChessClock(long millis, long bonusMillis, int m)
+    {
+        remaining = new long[PieceColor.values().length];
+        remaining[PieceColor.WHITE.ordinal()] = millis*1000000;
+        remaining[PieceColor.BLACK.ordinal()] = millis*1000000;
+        bonus = Math.max(0,bonusMillis)*1000000;
+        mode = m;
+    }
+
+    /**
+     * Starts a color's clock, stopping the other one without giving it any
+     * bonus
+     * @param color the color
+     */
+    public synchronized void start(PieceColor color)
+    {
+        stop();
+        running = color;
+        moveStart = System.nanoTime();
+    }
+
+    /**
+     * Stops the clock that is running, taking off the time used on the move
+     * so far
+     */
+    public synchronized void stop()
+    {
+        if (running==null)
+            return;
+        remaining[running.ordinal()] = remaining(running,System.nanoTime());
+        running = null;
+    }
+
+    /**
+     * Ends the move of the color whose clock is running, giving it its bonus,
+     * and starts the other color's clock
+     */
+    public synchronized void press()
+    {
+        if (running==null)
+            return;
+        long now = System.nanoTime();
+        long used = now-moveStart;
+        int i = running.ordinal();
+        remaining[i] = remaining(running,now);
+        if (remaining[i]>0)
+        {
+            if (mode==FISCHER)
+                remaining[i]+=bonus;
+            else if (mode==BRONSTEIN)
+                remaining[i]+=Math.min(used,bonus);
+        }
+        running = running.opposite();
+        moveStart = now;
+    }
+
+    /**
+     * Makes sure it is a color's clock running, pressing the clock if it is
+     * the other's. This is what the board calls whenever the color going
+     * changes.
+     * @param color the color going
+     */
+    public synchronized void setColorGoing(PieceColor color)
+    {
+        if (running!=null&&running!=color)
+            press();
+    }
+
+    /**
+     * Gets how much time a color has left right now
+     * @param color the color
+     * @return the time in milliseconds, never less than 0
+     */
+    public synchronized long getRemaining(PieceColor color)
+    {
+        return Math.max(0,remaining(color,System.nanoTime()))/1000000;
+    }
+
+    /**
+     * Gets how long until the running clock starts counting down, which is
+     * only ever more than 0 with SIMPLE_DELAY
+     * @return the time in milliseconds
+     */
+    public synchronized long getDelayLeft()
+    {
+        if (running==null||mode!=SIMPLE_DELAY)
+            return 0;
+        return Math.max(0,bonus-(System.nanoTime()-moveStart))/1000000;
+    }
+
+    /**
+     * Gets the color whose clock is running
+     * @return the color, or null if the clock is stopped
+     */
+    public synchronized PieceColor getRunning()
+    {
+        return running;
+    }
+
+    /**
+     * Gets the color that has run out of time
+     * @return the color, or null if nobody has
+     */
+    public synchronized PieceColor getFlagged()
+    {
+        long now = System.nanoTime();
+        for (PieceColor color: PieceColor.values())
+            if (remaining(color,now)<=0)
+                return color;
+        return null;
+    }
+
+    /**
+     * Gets the increment or delay
+     * @return the bonus in milliseconds
+     */
+    public long getBonus()
+    {
+        return bonus/1000000;
+    }
+
+    /**
+     * Gets how the bonus is given
+     * @return FISCHER, BRONSTEIN or SIMPLE_DELAY
+     */
+    public int getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * Works out how long a color should think about its move, for the
+     * computer. It splits the time left over the moves to go and adds most
+     * of the bonus, since that comes back anyway.
+     * @param color the color going
+     * @return the time in milliseconds
+     */
+    public long getMoveTime(PieceColor color)
+    {
+        return moveTime(getRemaining(color),getBonus(),0);
+    }
+
+    /**
+     * Works out how long to think about a move
+     * @param millis the time left
+     * @param bonusMillis the increment or delay
+     * @param movesToGo how many moves until more time is added, or 0 if
+     * that's not known
+     * @return the time in milliseconds, at least 1
+     */
+    public static long moveTime(long millis, long bonusMillis, int movesToGo)
+    {
+        long time = millis/(movesToGo>0 ? movesToGo : MOVES_TO_GO)+bonusMillis*3/4;
+        return Math.max(1,Math.min(time,millis/2));
+    }
+
+    /**
+     * Gets the time a color has left at some moment, in nanoseconds
+     * @param color the color
+     * @param now the moment, from System.nanoTime
+     * @return the time, which can be less than 0 once it has run out
+     */
+    private long remaining(PieceColor color, long now)
+    {
+        long left = remaining[color.ordinal()];
+        if (color!=running)
+            return left;
+        long used = now-moveStart;
+        if (mode==SIMPLE_DELAY)
+            used = Math.max(0,used-bonus);
+        return left-used;
+    }
+}
@@ -23,16 +23,16 @@ public class ChessFrame extends JFrame
     private final JTextField notifier;
     
     /**
-     * This constructor takes in the amount of time on the clock and the board
-     * to display everything.
+     * This constructor takes in the chess clock and the board to display
+     * everything.
      * @param b the board displayed
-     * @param timeOnClock the number of milliseconds on the clock
+     * @param clock the chess clock, or null to play without one
      */
-    public ChessFrame(Board b, long timeOnClock)
+    public ChessFrame(Board b, ChessClock clock)
     {
          setTitle("Miller Chess");
          board = b;
-         side = new SidePanel(this,timeOnClock);
+         side = new SidePanel(this,clock);
          JPanel side1 = new JPanel();
          side1.setLayout(new GridLayout());
          side1.add(side);
@@ -0,0 +1,379 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * These are the numbers the computer judges a position by: a value for each
+ * type of piece and a piece-square table for each, saying what it is worth
+ * on every square on top of that, once for the middlegame and once for the
+ * endgame. The score of a position is the two sums blended by how much
+ * material is left, the phase, so a king that should hide at the start
+ * walks to the middle once the queens are off.
+ *
+ * The numbers are PeSTO's, by Ronald Friederich, in hundredths of a pawn.
+ * They can be tuned without building the game again by running it with
+ * -Dchess.eval=file, where the file is in the format main prints them in.
+ * If the file can't be read the numbers here are used, so a bad file never
+ * stops the game from starting.
+ *
+ * Position keeps the sums up to date as pieces go on and off the board, so
+ * scoring a position doesn't have to look at its pieces at all.
+ */
+public final class Evaluation
+{
+    private static final Type[] TYPE_VALUES = Type.values();
+    private static final int TYPES = TYPE_VALUES.length;
+    private static final int SQUARES = Chess.ROWS*Chess.COLUMNS;
+    private static final int[][] MIDDLEGAME = new int[2*TYPES][SQUARES]; //white's count up, black's down
+    private static final int[][] ENDGAME = new int[2*TYPES][SQUARES];
+    private static final int[] MIDDLEGAME_VALUES = new int[TYPES];
+    private static final int[] ENDGAME_VALUES = new int[TYPES];
+    private static final int[][] MIDDLEGAME_TABLES = new int[TYPES][];
+    private static final int[][] ENDGAME_TABLES = new int[TYPES][];
+    private static final int[] PHASE = new int[TYPES];
+    private static final int[] EXCHANGE = new int[TYPES];
+    public static final int MAX_PHASE; //the phase with all the pieces on
+
+    //what a piece is worth on each square on top of its value, for white,
+    //with the eighth rank first and the a file on the left
+    private static final int[] PAWN_MIDDLEGAME = {
+            0,    0,    0,    0,    0,    0,    0,    0,
+           98,  134,   61,   95,   68,  126,   34,  -11,
+           -6,    7,   26,   31,   65,   56,   25,  -20,
+          -14,   13,    6,   21,   23,   12,   17,  -23,
+          -27,   -2,   -5,   12,   17,    6,   10,  -25,
+          -26,   -4,   -4,  -10,    3,    3,   33,  -12,
+          -35,   -1,  -20,  -23,  -15,   24,   38,  -22,
+            0,    0,    0,    0,    0,    0,    0,    0};
+    private static final int[] PAWN_ENDGAME = {
+            0,    0,    0,    0,    0,    0,    0,    0,
+          178,  173,  158,  134,  147,  132,  165,  187,
+           94,  100,   85,   67,   56,   53,   82,   84,
+           32,   24,   13,    5,   -2,    4,   17,   17,
+           13,    9,   -3,   -7,   -7,   -8,    3,   -1,
+            4,    7,   -6,    1,    0,   -5,   -1,   -8,
+           13,    8,    8,   10,   13,    0,    2,   -7,
+            0,    0,    0,    0,    0,    0,    0,    0};
+    private static final int[] KNIGHT_MIDDLEGAME = {
+         -167,  -89,  -34,  -49,   61,  -97,  -15, -107,
+          -73,  -41,   72,   36,   23,   62,    7,  -17,
+          -47,   60,   37,   65,   84,  129,   73,   44,
+           -9,   17,   19,   53,   37,   69,   18,   22,
+          -13,    4,   16,   13,   28,   19,   21,   -8,
+          -23,   -9,   12,   10,   19,   17,   25,  -16,
+          -29,  -53,  -12,   -3,   -1,   18,  -14,  -19,
+         -105,  -21,  -58,  -33,  -17,  -28,  -19,  -23};
+    private static final int[] KNIGHT_ENDGAME = {
+          -58,  -38,  -13,  -28,  -31,  -27,  -63,  -99,
+          -25,   -8,  -25,   -2,   -9,  -25,  -24,  -52,
+          -24,  -20,   10,    9,   -1,   -9,  -19,  -41,
+          -17,    3,   22,   22,   22,   11,    8,  -18,
+          -18,   -6,   16,   25,   16,   17,    4,  -18,
+          -23,   -3,   -1,   15,   10,   -3,  -20,  -22,
+          -42,  -20,  -10,   -5,   -2,  -20,  -23,  -44,
+          -29,  -51,  -23,  -15,  -22,  -18,  -50,  -64};
+    private static final int[] BISHOP_MIDDLEGAME = {
+          -29,    4,  -82,  -37,  -25,  -42,    7,   -8,
+          -26,   16,  -18,  -13,   30,   59,   18,  -47,
+          -16,   37,   43,   40,   35,   50,   37,   -2,
+           -4,    5,   19,   50,   37,   37,    7,   -2,
+           -6,   13,   13,   26,   34,   12,   10,    4,
+            0,   15,   15,   15,   14,   27,   18,   10,
+            4,   15,   16,    0,    7,   21,   33,    1,
+          -33,   -3,  -14,  -21,  -13,  -12,  -39,  -21};
+    private static final int[] BISHOP_ENDGAME = {
+          -14,  -21,  -11,   -8,   -7,   -9,  -17,  -24,
+           -8,   -4,    7,  -12,   -3,  -13,   -4,  -14,
+            2,   -8,    0,   -1,   -2,    6,    0,    4,
+           -3,    9,   12,    9,   14,   10,    3,    2,
+           -6,    3,   13,   19,    7,   10,   -3,   -9,
+          -12,   -3,    8,   10,   13,    3,   -7,  -15,
+          -14,  -18,   -7,   -1,    4,   -9,  -15,  -27,
+          -23,   -9,  -23,   -5,   -9,  -16,   -5,  -17};
+    private static final int[] ROOK_MIDDLEGAME = {
+           32,   42,   32,   51,   63,    9,   31,   43,
+           27,   32,   58,   62,   80,   67,   26,   44,
+           -5,   19,   26,   36,   17,   45,   61,   16,
+          -24,  -11,    7,   26,   24,   35,   -8,  -20,
+          -36,  -26,  -12,   -1,    9,   -7,    6,  -23,
+          -45,  -25,  -16,  -17,    3,    0,   -5,  -33,
+          -44,  -16,  -20,   -9,   -1,   11,   -6,  -71,
+          -19,  -13,    1,   17,   16,    7,  -37,  -26};
+    private static final int[] ROOK_ENDGAME = {
+           13,   10,   18,   15,   12,   12,    8,    5,
+           11,   13,   13,   11,   -3,    3,    8,    3,
+            7,    7,    7,    5,    4,   -3,   -5,   -3,
+            4,    3,   13,    1,    2,    1,   -1,    2,
+            3,    5,    8,    4,   -5,   -6,   -8,  -11,
+           -4,    0,   -5,   -1,   -7,  -12,   -8,  -16,
+           -6,   -6,    0,    2,   -9,   -9,  -11,   -3,
+           -9,    2,    3,   -1,   -5,  -13,    4,  -20};
+    private static final int[] QUEEN_MIDDLEGAME = {
+          -28,    0,   29,   12,   59,   44,   43,   45,
+          -24,  -39,   -5,    1,  -16,   57,   28,   54,
+          -13,  -17,    7,    8,   29,   56,   47,   57,
+          -27,  -27,  -16,  -16,   -1,   17,   -2,    1,
+           -9,  -26,   -9,  -10,   -2,   -4,    3,   -3,
+          -14,    2,  -11,   -2,   -5,    2,   14,    5,
+          -35,   -8,   11,    2,    8,   15,   -3,    1,
+           -1,  -18,   -9,   10,  -15,  -25,  -31,  -50};
+    private static final int[] QUEEN_ENDGAME = {
+           -9,   22,   22,   27,   27,   19,   10,   20,
+          -17,   20,   32,   41,   58,   25,   30,    0,
+          -20,    6,    9,   49,   47,   35,   19,    9,
+            3,   22,   24,   45,   57,   40,   57,   36,
+          -18,   28,   19,   47,   31,   34,   39,   23,
+          -16,  -27,   15,    6,    9,   17,   10,    5,
+          -22,  -23,  -30,  -16,  -16,  -23,  -36,  -32,
+          -33,  -28,  -22,  -43,   -5,  -32,  -20,  -41};
+    private static final int[] KING_MIDDLEGAME = {
+          -65,   23,   16,  -15,  -56,  -34,    2,   13,
+           29,   -1,  -20,   -7,   -8,   -4,  -38,  -29,
+           -9,   24,    2,  -16,  -20,    6,   22,  -22,
+          -17,  -20,  -12,  -27,  -30,  -25,  -14,  -36,
+          -49,   -1,  -27,  -39,  -46,  -44,  -33,  -51,
+          -14,  -14,  -22,  -46,  -44,  -30,  -15,  -27,
+            1,    7,   -8,  -64,  -43,  -16,    9,    8,
+          -15,   36,   12,  -54,    8,  -28,   24,   14};
+    private static final int[] KING_ENDGAME = {
+          -74,  -35,  -18,  -18,  -11,   15,    4,  -17,
+          -12,   17,   14,   17,   17,   38,   23,   11,
+           10,   17,   23,   15,   20,   45,   44,   13,
+           -8,   22,   24,   27,   26,   33,   26,    3,
+          -18,   -4,   21,   24,   27,   23,    9,  -11,
+          -19,   -3,   11,   21,   23,   16,    7,   -9,
+          -27,  -11,    4,   13,   14,    4,   -5,  -17,
+          -53,  -34,  -21,  -11,  -28,  -14,  -24,  -43};
+
+    static
+    {
+        EXCHANGE[Type.PAWN.ordinal()] = 100;
+        EXCHANGE[Type.KNIGHT.ordinal()] = 300;
+        EXCHANGE[Type.BISHOP.ordinal()] = 300;
+        EXCHANGE[Type.ROOK.ordinal()] = 500;
+        EXCHANGE[Type.QUEEN.ordinal()] = 900;
+        EXCHANGE[Type.KING.ordinal()] = 20000; //more than everything else together
+        useDefaults();
+        String file = System.getProperty("chess.eval");
+        if (file!=null)
+        {
+            try (InputStream in = new FileInputStream(file))
+            {
+                read(new BufferedReader(new InputStreamReader(in,StandardCharsets.UTF_8)));
+            }
+            catch (IOException|IllegalStateException e)
+            {
+                System.err.println("Can't read the evaluation in "+file+", so the default one is used: "+e.getMessage());
+                useDefaults();
+            }
+        }
+        for (Type type: TYPE_VALUES)
+        {
+            int t = type.ordinal();
+            for (int square = 0; square < SQUARES; square++)
+            {
+                int flipped = square^(SQUARES-Chess.COLUMNS); //the same square from black's side
+                MIDDLEGAME[PieceColor.WHITE.ordinal()*TYPES+t][square] = MIDDLEGAME_VALUES[t]+MIDDLEGAME_TABLES[t][square];
+                ENDGAME[PieceColor.WHITE.ordinal()*TYPES+t][square] = ENDGAME_VALUES[t]+ENDGAME_TABLES[t][square];
+                MIDDLEGAME[PieceColor.BLACK.ordinal()*TYPES+t][square] = -MIDDLEGAME_VALUES[t]-MIDDLEGAME_TABLES[t][flipped];
+                ENDGAME[PieceColor.BLACK.ordinal()*TYPES+t][square] = -ENDGAME_VALUES[t]-ENDGAME_TABLES[t][flipped];
+            }
+        }
+        int phase = 0;
+        for (Piece p: Chess.startingPosition())
+            phase+=PHASE[p.getType().ordinal()];
+        MAX_PHASE = Math.max(1,phase);
+    }
+
+    private Evaluation()
+    {
+    }
+
+    /**
+     * Prints the numbers in use in the format -Dchess.eval reads, to start a
+     * file of changed ones from
+     * @param args not used
+     */
+    public static void main(String[] args)
+    {
+        StringBuilder out = new StringBuilder();
+        out.append("# value TYPE middlegame endgame\n");
+        for (Type type: TYPE_VALUES)
+            out.append("value ").append(type.name()).append(' ').append(MIDDLEGAME_VALUES[type.ordinal()])
+                .append(' ').append(ENDGAME_VALUES[type.ordinal()]).append('\n');
+        out.append("\n# phase TYPE weight: how much each piece left counts towards it being the middlegame\n");
+        for (Type type: TYPE_VALUES)
+            out.append("phase ").append(type.name()).append(' ').append(PHASE[type.ordinal()]).append('\n');
+        out.append("\n# middlegame TYPE and endgame TYPE, then what the piece is worth on each square\n");
+        out.append("# on top of its value, for white, with the eighth rank first\n");
+        for (Type type: TYPE_VALUES)
+        {
+            appendTable(out,"middlegame",type,MIDDLEGAME_TABLES[type.ordinal()]);
+            appendTable(out,"endgame",type,ENDGAME_TABLES[type.ordinal()]);
+        }
+        System.out.print(out);
+    }
+
+    private static void appendTable(StringBuilder out, String name, Type type, int[] table)
+    {
+        out.append('\n').append(name).append(' ').append(type.name()).append('\n');
+        for (int square = 0; square < SQUARES; square++)
+            out.append(String.format("%5d",table[square])).append(square%Chess.COLUMNS==Chess.COLUMNS-1 ? "\n" : "");
+    }
+
+    /**
+     * Gets what a piece is worth in the middlegame, counting up for white and
+     * down for black
+     * @param piece the color and type, color*types+type like Position's
+     * bitboards
+     * @param square the square it is on, row*8+col
+     * @return the value
+     */
+    static int middlegame(int piece, int square)
+    {
+        return MIDDLEGAME[piece][square];
+    }
+
+    /**
+     * Gets what a piece is worth in the endgame, like middlegame
+     * @param piece the color and type, color*types+type
+     * @param square the square it is on, row*8+col
+     * @return the value
+     */
+    static int endgame(int piece, int square)
+    {
+        return ENDGAME[piece][square];
+    }
+
+    /**
+     * Gets how much a piece counts towards the phase
+     * @param type the type of the piece
+     * @return the weight
+     */
+    public static int phase(Type type)
+    {
+        return PHASE[type.ordinal()];
+    }
+
+    /**
+     * Gets what a piece is worth when pieces are traded, which is what the
+     * static exchange evaluation and the order captures are tried in go by.
+     * A knight and a bishop are worth the same, so trading one for the other
+     * is even and not pruned, and a king is worth more than all the rest.
+     * @param type the type of the piece
+     * @return the value, in hundredths of a pawn
+     */
+    public static int exchangeValue(Type type)
+    {
+        return EXCHANGE[type.ordinal()];
+    }
+
+    /**
+     * Blends a middlegame and an endgame score by the phase
+     * @param middlegame the middlegame score
+     * @param endgame the endgame score
+     * @param phase the phase, MAX_PHASE or more for all middlegame, 0 for all
+     * endgame
+     * @return the score
+     */
+    public static int taper(int middlegame, int endgame, int phase)
+    {
+        phase = Math.min(phase,MAX_PHASE);
+        return (middlegame*phase+endgame*(MAX_PHASE-phase))/MAX_PHASE;
+    }
+
+    /**
+     * Puts back the numbers the game comes with
+     */
+    private static void useDefaults()
+    {
+        set(Type.PAWN,82,94,0,PAWN_MIDDLEGAME,PAWN_ENDGAME);
+        set(Type.KNIGHT,337,281,1,KNIGHT_MIDDLEGAME,KNIGHT_ENDGAME);
+        set(Type.BISHOP,365,297,1,BISHOP_MIDDLEGAME,BISHOP_ENDGAME);
+        set(Type.ROOK,477,512,2,ROOK_MIDDLEGAME,ROOK_ENDGAME);
+        set(Type.QUEEN,1025,936,4,QUEEN_MIDDLEGAME,QUEEN_ENDGAME);
+        set(Type.KING,0,0,0,KING_MIDDLEGAME,KING_ENDGAME);
+    }
+
+    private static void set(Type type, int middlegameValue, int endgameValue, int phase, int[] middlegameTable, int[] endgameTable)
+    {
+        int t = type.ordinal();
+        MIDDLEGAME_VALUES[t] = middlegameValue;
+        ENDGAME_VALUES[t] = endgameValue;
+        PHASE[t] = phase;
+        MIDDLEGAME_TABLES[t] = middlegameTable;
+        ENDGAME_TABLES[t] = endgameTable;
+    }
+
+    /**
+     * Reads values, phases and tables over the default ones, so a file only
+     * needs the ones it changes. The tables are written for white from the
+     * eighth rank down, which is how the rows go here, and black's are
+     * white's upside down.
+     * @param reader the file
+     * @throws IOException if it can't be read
+     */
+    private static void read(BufferedReader reader) throws IOException
+    {
+        int[] table = null; //the table being filled
+        int filled = 0;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine())!=null)
+        {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment>=0)
+                line = line.substring(0,comment);
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+            String[] words = line.split("\\s+");
+            try
+            {
+                if (table!=null&&filled<SQUARES)
+                {
+                    for (String word: words)
+                    {
+                        if (filled==SQUARES)
+                            throw new IllegalArgumentException("too many numbers");
+                        table[filled++] = Integer.parseInt(word);
+                    }
+                    continue;
+                }
+                Type type = Type.valueOf(words[1]);
+                switch (words[0])
+                {
+                    case "value":
+                        MIDDLEGAME_VALUES[type.ordinal()] = Integer.parseInt(words[2]);
+                        ENDGAME_VALUES[type.ordinal()] = Integer.parseInt(words[3]);
+                        break;
+                    case "phase":
+                        PHASE[type.ordinal()] = Integer.parseInt(words[2]);
+                        break;
+                    case "middlegame":
+                        table = MIDDLEGAME_TABLES[type.ordinal()] = new int[SQUARES];
+                        filled = 0;
+                        break;
+                    case "endgame":
+                        table = ENDGAME_TABLES[type.ordinal()] = new int[SQUARES];
+                        filled = 0;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("don't know "+words[0]);
+                }
+            }
+            catch (IllegalArgumentException|ArrayIndexOutOfBoundsException e)
+            {
+                throw new IllegalStateException("Can't read line "+lineNumber+" of the evaluation: "+line,e);
+            }
+        }
+        if (table!=null&&filled<SQUARES)
+            throw new IllegalStateException("The last table of the evaluation is missing squares");
+    }
+}
@@ -0,0 +1,256 @@
+package chess;
+
+import java.util.ArrayList;
+
+/**
+ * Forsyth-Edwards Notation, the one line setup every chess program can read
+ * and write: where the pieces are, the color going, the castling rights, the
+ * en passant square and the two move counts, like
+ * rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1
+ *
+ * Reading goes through the text once, a character at a time, and turns the
+ * castling rights and en passant square into hasMoved and hasJustMoved the
+ * way the rules expect them. Only the pieces themselves get allocated.
+ */
+public final class Fen
+{
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final Type[] TYPES = Type.values();
+    private static final char[] LETTERS = new char[TYPES.length]; //the white letter of each type
+
+    static
+    {
+        for (Type t: TYPES)
+            LETTERS[t.ordinal()] = t.toNotation().charAt(0);
+    }
+
+    private Fen()
+    {
+    }
+
+    /**
+     * Determines whether a setup is FEN rather than the string Position's
+     * toString makes, which never has a /
+     * @param setup the setup
+     * @return whether it is FEN
+     */
+    public static boolean isFen(String setup)
+    {
+        return setup.indexOf('/')>=0;
+    }
+
+    /**
+     * Makes the position a FEN describes. Everything after the placement can
+     * be left off, in which case white is going, nobody can castle, there's
+     * no en passant and it is move 1.
+     * @param fen the FEN
+     * @return the position
+     * @throws IllegalArgumentException if it isn't FEN
+     */
+    public static Position parse(CharSequence fen)
+    {
+        int length = fen.length();
+        int i = skipSpaces(fen,0);
+        ArrayList<Piece> pieces = new ArrayList<>(32);
+        int row = 0;
+        int col = 0;
+        for (; i < length; i++)
+        {
+            char c = fen.charAt(i);
+            if (c==' ')
+                break;
+            if (c=='/')
+            {
+                if (col!=Chess.COLUMNS||++row>=Chess.ROWS)
+                    throw bad(fen,"the rows aren't 8 squares each");
+                col = 0;
+            }
+            else if (c>='1'&&c<='8')
+                col+=c-'0';
+            else
+            {
+                Type type = type(Character.toUpperCase(c));
+                if (type==null||col>=Chess.COLUMNS)
+                    throw bad(fen,"there's no piece "+c);
+                PieceColor color = Character.isUpperCase(c) ? PieceColor.WHITE : PieceColor.BLACK;
+                pieces.add(new Piece(type,color,new Location(row,col)));
+                col++;
+            }
+            if (col>Chess.COLUMNS)
+                throw bad(fen,"the rows aren't 8 squares each");
+        }
+        if (row!=Chess.ROWS-1||col!=Chess.COLUMNS)
+            throw bad(fen,"there aren't 8 rows of 8 squares");
+
+        i = skipSpaces(fen,i);
+        boolean black = false;
+        if (i<length)
+        {
+            char c = fen.charAt(i++);
+            if (c!='w'&&c!='b')
+                throw bad(fen,"the color going has to be w or b");
+            black = c=='b';
+        }
+
+        i = skipSpaces(fen,i);
+        int rights = 0;
+        for (; i < length&&fen.charAt(i)!=' '; i++)
+            switch (fen.charAt(i))
+            {
+                case 'K': rights |= Zobrist.WHITE_KINGSIDE; break;
+                case 'Q': rights |= Zobrist.WHITE_QUEENSIDE; break;
+                case 'k': rights |= Zobrist.BLACK_KINGSIDE; break;
+                case 'q': rights |= Zobrist.BLACK_QUEENSIDE; break;
+                case '-': break;
+                default: throw bad(fen,"the castling rights can only be KQkq or -");
+            }
+
+        i = skipSpaces(fen,i);
+        int passantRow = -1;
+        int passantCol = -1;
+        if (i<length&&fen.charAt(i)=='-')
+            i++;
+        else if (i+1<length)
+        {
+            passantCol = fen.charAt(i)-'a';
+            passantRow = '8'-fen.charAt(i+1);
+            if (passantCol<0||passantCol>=Chess.COLUMNS||(passantRow!=2&&passantRow!=5))
+                throw bad(fen,"the en passant square has to be on the 3rd or 6th rank");
+            i+=2;
+        }
+
+        i = skipSpaces(fen,i);
+        int fiftyMove = 0;
+        for (; i < length&&fen.charAt(i)>='0'&&fen.charAt(i)<='9'; i++)
+            fiftyMove = fiftyMove*10+fen.charAt(i)-'0';
+        i = skipSpaces(fen,i);
+        int moveNumber = 0;
+        for (; i < length&&fen.charAt(i)>='0'&&fen.charAt(i)<='9'; i++)
+            moveNumber = moveNumber*10+fen.charAt(i)-'0';
+
+        for (Piece p: pieces)
+            setMoved(p,rights,passantRow,passantCol);
+        Position position = new Position(pieces);
+        position.setTurn(2*(Math.max(1,moveNumber)-1)+(black ? 1 : 0));
+        position.setFiftyMove(fiftyMove);
+        return position;
+    }
+
+    /**
+     * Sets whether a piece has moved from the castling rights, and whether
+     * it just moved from the en passant square
+     * @param p the piece
+     * @param rights the castling rights, as Zobrist's castling bits
+     * @param passantRow the row of the en passant square, or -1
+     * @param passantCol the col of the en passant square, or -1
+     */
+    private static void setMoved(Piece p, int rights, int passantRow, int passantCol)
+    {
+        Location loc = p.getOrigin();
+        int row = loc.getRow();
+        int col = loc.getCol();
+        boolean white = p.white();
+        int homeRow = white ? Chess.ROWS-1 : 0;
+        int kingside = white ? Zobrist.WHITE_KINGSIDE : Zobrist.BLACK_KINGSIDE;
+        int queenside = white ? Zobrist.WHITE_QUEENSIDE : Zobrist.BLACK_QUEENSIDE;
+        if (p.getType()==Type.PAWN)
+        {
+            p.setHasMoved(row!=(white ? Chess.ROWS-2 : 1));
+            if (col==passantCol&&row==passantRow+(white ? -1 : 1))
+                p.setHasJustMoved(true);
+        }
+        else if (p.getType()==Type.KING)
+            p.setHasMoved(row!=homeRow||col!=4||(rights&(kingside|queenside))==0);
+        else if (p.getType()==Type.ROOK)
+            p.setHasMoved(row!=homeRow
+                ||!((col==Chess.COLUMNS-1&&(rights&kingside)!=0)||(col==0&&(rights&queenside)!=0)));
+        else
+            p.setHasMoved(true);
+    }
+
+    /**
+     * Writes a position as FEN. The en passant square is written whenever a
+     * pawn has just gone two squares, whether or not it can be taken.
+     * @param p the position
+     * @return the FEN
+     */
+    public static String toString(Position p)
+    {
+        StringBuilder s = new StringBuilder(90);
+        Piece passed = null;
+        for (int row = 0; row < Chess.ROWS; row++)
+        {
+            if (row>0)
+                s.append('/');
+            int empty = 0;
+            for (int col = 0; col < Chess.COLUMNS; col++)
+            {
+                Piece piece = p.getPiece(row,col);
+                if (piece==null)
+                {
+                    empty++;
+                    continue;
+                }
+                if (empty>0)
+                    s.append((char)('0'+empty));
+                empty = 0;
+                char letter = LETTERS[piece.getType().ordinal()];
+                s.append(piece.white() ? letter : Character.toLowerCase(letter));
+                if (piece.getType()==Type.PAWN&&piece.hasJustMoved())
+                    passed = piece;
+            }
+            if (empty>0)
+                s.append((char)('0'+empty));
+        }
+        s.append(p.colorGoing()==PieceColor.WHITE ? " w " : " b ");
+
+        int rights = p.getCastling();
+        if (rights==0)
+            s.append('-');
+        if ((rights&Zobrist.WHITE_KINGSIDE)!=0)
+            s.append('K');
+        if ((rights&Zobrist.WHITE_QUEENSIDE)!=0)
+            s.append('Q');
+        if ((rights&Zobrist.BLACK_KINGSIDE)!=0)
+            s.append('k');
+        if ((rights&Zobrist.BLACK_QUEENSIDE)!=0)
+            s.append('q');
+
+        s.append(' ');
+        if (passed==null)
+            s.append('-');
+        else
+        {
+            Location loc = p.getLocation(passed);
+            s.append(Location.LocToNot(new Location(loc.getRow()+(passed.white() ? 1 : -1),loc.getCol())));
+        }
+        s.append(' ').append(p.getFiftyMove()).append(' ').append(p.getTurn()/2+1);
+        return s.toString();
+    }
+
+    /**
+     * Gets the type of piece a white letter stands for
+     * @param letter the letter
+     * @return the type, or null if it isn't one
+     */
+    private static Type type(char letter)
+    {
+        for (int i = 0; i < LETTERS.length; i++)
+            if (LETTERS[i]==letter)
+                return TYPES[i];
+        return null;
+    }
+
+    private static int skipSpaces(CharSequence fen, int i)
+    {
+        while (i<fen.length()&&fen.charAt(i)==' ')
+            i++;
+        return i;
+    }
+
+    private static IllegalArgumentException bad(CharSequence fen, String problem)
+    {
+        return new IllegalArgumentException("Can't read FEN \""+fen+"\": "+problem);
+    }
+}
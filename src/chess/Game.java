@@ -14,6 +14,7 @@ import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -32,15 +33,16 @@ public final class Game
      * add different sets of pieces
      */
     private static boolean preliminaryDone;
+    private static final long COMPUTER_MILLIS = 1000; //how long the computer thinks per move
     
     public static void main(String[] args) throws InterruptedException
     {
         preliminaryDone=false;
         final JFrame start = new JFrame("Miller Chess");
         Dimension dim = Toolkit.getDefaultToolkit().getScreenSize();
-        start.setSize(300,200);
+        start.setSize(300,300);
         start.setLocation(dim.width/2-start.getSize().width/2, dim.height/2-start.getSize().height/2);
-        start.setLayout(new GridLayout(3,1));
+        start.setLayout(new GridLayout(5,1));
         JButton ok = new JButton("OK");
         ok.addActionListener(new ActionListener(){
                 @Override
@@ -54,6 +56,8 @@ public final class Game
         JLabel minuteLabel = new JLabel("Min");
         final JTextField minuteEnter = new JTextField("0",2);
         final JTextField hourEnter = new JTextField("0",2);
+        final JTextField bonusEnter = new JTextField("0",2);
+        final JComboBox<String> bonusMode = new JComboBox<>(ChessClock.MODE_NAMES);
         final JCheckBox yes = new JCheckBox("With Chess Clock",true);
         yes.addActionListener(new ActionListener(){
                 @Override
@@ -63,11 +67,15 @@ public final class Game
                     {
                         minuteEnter.setEnabled(true);
                         hourEnter.setEnabled(true);
+                        bonusEnter.setEnabled(true);
+                        bonusMode.setEnabled(true);
                     }
                     else
                     {
                         minuteEnter.setEnabled(false);
                         hourEnter.setEnabled(false);
+                        bonusEnter.setEnabled(false);
+                        bonusMode.setEnabled(false);
                     }
                 }
         });
@@ -76,8 +84,18 @@ public final class Game
         timePanel.add(hourEnter);
         timePanel.add(minuteLabel);
         timePanel.add(minuteEnter);
+        JPanel bonusPanel = new JPanel();
+        bonusPanel.add(new JLabel("Sec"));
+        bonusPanel.add(bonusEnter);
+        bonusPanel.add(bonusMode);
+        final JComboBox<String> computer = new JComboBox<>(new String[]{"Nobody","White","Black"});
+        JPanel computerPanel = new JPanel();
+        computerPanel.add(new JLabel("Computer plays"));
+        computerPanel.add(computer);
         start.add(timePanel);
+        start.add(bonusPanel);
         start.add(yes);
+        start.add(computerPanel);
         start.add(ok);
         start.getRootPane().setDefaultButton(ok);
         start.setVisible(true);
@@ -89,22 +107,36 @@ public final class Game
         {
             timeOnClock = Integer.parseInt(minuteEnter.getText()) + 
                     (Integer.parseInt(hourEnter.getText())*60);
-            if (timeOnClock==0||timeOnClock>=600)
+            if (timeOnClock==0||timeOnClock>=600||!yes.isSelected())
                 timeOnClock= -1;
         }
         catch (Exception ex)
         {
             timeOnClock = -1;
         }
+        long bonus; //the increment or delay, in seconds
+        try
+        {
+            bonus = Long.parseLong(bonusEnter.getText());
+        }
+        catch (Exception ex)
+        {
+            bonus = 0;
+        }
+        ChessClock clock = null;
+        if (timeOnClock>0)
+            clock = new ChessClock(timeOnClock*60000L,bonus*1000,bonusMode.getSelectedIndex());
                 
         ArrayList<Piece> pieces = Chess.startingPosition();
         Board b = new Board(pieces);
         
-        ChessFrame f = new ChessFrame(b,timeOnClock);
+        ChessFrame f = new ChessFrame(b,clock);
         b.setFrame(f);
         b.setPreferredSize(new Dimension(800,800));
         f.setSize(1000,800);
+        b.setComputer(PieceColor.colorOf((String)computer.getSelectedItem()),COMPUTER_MILLIS);
         f.setVisible(true);
+        b.computerMove();
     }
     
     public static void finishPreliminary()
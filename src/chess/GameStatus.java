@@ -0,0 +1,127 @@
+package chess;
+
+import java.util.ArrayList;
+
+/**
+ * This is everything the game needs to know about a position once a move has
+ * been made: the legal moves, whether the color going is in check, and
+ * whether the game is over and how. It is worked out once, with one move
+ * generation, and then the notation, the dialogs and the highlighting all
+ * read from it. Position hands out the same one until it changes.
+ */
+public final class GameStatus
+{
+    private final PieceColor colorGoing;
+    private final int[] moves;
+    private final int moveCount;
+    private final boolean check;
+    private final boolean checkmate;
+    private final int draw;
+
+    /**
+     * Works out the status of a position
+     * @param p the position
+     */
+    GameStatus(Position p)
+    {
+        colorGoing = p.colorGoing();
+        moves = new int[Move.MAX_MOVES];
+        moveCount = p.generateMoves(moves,0);
+        check = p.inCheck(colorGoing);
+        checkmate = check&&moveCount==0;
+        if (checkmate)
+            draw = Position.NOT_DRAW;
+        else if (Long.bitCount(p.getOccupied())<3) //just the kings
+            draw = Position.TWO_KINGS;
+        else if (moveCount==0)
+            draw = Position.STALEMATE;
+        else if (p.getFiftyMove()>=100)
+            draw = Position.FIFTY_MOVE;
+        else if (p.repetitions()>=3)
+            draw = Position.THREE_MOVE;
+        else draw = Position.NOT_DRAW;
+    }
+
+    /**
+     * Gets the color whose turn it is
+     * @return the color going
+     */
+    public PieceColor getColorGoing()
+    {
+        return colorGoing;
+    }
+
+    /**
+     * Gets how many legal moves the color going has
+     * @return the number of moves
+     */
+    public int getMoveCount()
+    {
+        return moveCount;
+    }
+
+    /**
+     * Gets one of the legal moves, packed like Move does
+     * @param i which move, from 0 to getMoveCount()-1
+     * @return the move
+     */
+    public int getMove(int i)
+    {
+        return moves[i];
+    }
+
+    /**
+     * Gets the squares a piece of the color going can move to
+     * @param from the location of the piece
+     * @return the locations, one for all the promotions to a square
+     */
+    public ArrayList<Location> getMoveLocations(Location from)
+    {
+        ArrayList<Location> locs = new ArrayList<>();
+        int square = Move.square(from);
+        for (int i = 0; i < moveCount; i++)
+        {
+            int move = moves[i];
+            Type promotion = Move.promotion(move);
+            if (Move.from(move)==square&&(promotion==null||promotion==Type.QUEEN))
+                locs.add(Move.location(Move.to(move)));
+        }
+        return locs;
+    }
+
+    /**
+     * Determines whether the color going is in check
+     * @return whether it is in check
+     */
+    public boolean isCheck()
+    {
+        return check;
+    }
+
+    /**
+     * Determines whether the color going is checkmated
+     * @return whether it is checkmated
+     */
+    public boolean isCheckmate()
+    {
+        return checkmate;
+    }
+
+    /**
+     * Gets the type of draw, if the game is drawn
+     * @return one of the Position draw types, or NOT_DRAW
+     */
+    public int getDraw()
+    {
+        return draw;
+    }
+
+    /**
+     * Determines whether the game is over, by checkmate or a draw
+     * @return whether it is over
+     */
+    public boolean isOver()
+    {
+        return checkmate||draw!=Position.NOT_DRAW;
+    }
+}
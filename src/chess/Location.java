@@ -74,22 +74,7 @@ public class Location implements Comparable
      */
     public Location farther(Direction direction)
     {
-        Location loc = new Location(this);
-        double up = Math.sin(direction.getAngle());
-        double right = Math.cos(direction.getAngle());
-        up = (int)(up*100);
-        right = (int)(right*100);
-        
-        if (up>0)
-            loc.setRow(loc.row-1);
-        else if (up<0)
-            loc.setRow(loc.row+1);
-        
-        if (right>0)
-            loc.setCol(loc.col+1);
-        else if (right<0)
-            loc.setCol(loc.col-1);
-        return loc;
+        return new Location(row+direction.getRowStep(),col+direction.getColStep());
     }
     
     /**
@@ -217,26 +202,58 @@ public class Location implements Comparable
  */
 enum Direction
 {
-    EAST(0), NORTHEAST(Math.PI/4), NORTH(Math.PI/2), NORTHWEST(3*Math.PI/4), 
-    WEST(Math.PI), SOUTHWEST(5*Math.PI/4), SOUTH(3*Math.PI/2), SOUTHEAST(7*Math.PI/4);
+    EAST(0,1), NORTHEAST(-1,1), NORTH(-1,0), NORTHWEST(-1,-1), 
+    WEST(0,-1), SOUTHWEST(1,-1), SOUTH(1,0), SOUTHEAST(1,1);
+    
+    private final int rowStep;
+    private final int colStep;
     
-    private double angle;
+    /**
+     * Constructor that instantiates the steps. North is up the board, which
+     * is toward row 0.
+     * @param r how much the row changes going one square this way
+     * @param c how much the col changes going one square this way
+     */
+    Direction(int r, int c)
+    {
+        rowStep = r;
+        colStep = c;
+    }
+    
+    /**
+     * Gets how much the row changes going one square this way
+     * @return -1, 0 or 1
+     */
+    public int getRowStep()
+    {
+        return rowStep;
+    }
+    
+    /**
+     * Gets how much the col changes going one square this way
+     * @return -1, 0 or 1
+     */
+    public int getColStep()
+    {
+        return colStep;
+    }
     
     /**
-     * Constructor that instantiates angle
-     * @param a the value of angle
+     * Gets how much the square number, row*8+col, changes going one square
+     * this way
+     * @return the change
      */
-    Direction(double a)
+    public int getSquareStep()
     {
-        angle = a;
+        return rowStep*Chess.COLUMNS+colStep;
     }
     
     /**
-     * Gets the angle
-     * @return the angle
+     * Determines whether this is one of the diagonals, the way bishops go
+     * @return whether the direction is diagonal
      */
-    public double getAngle()
+    public boolean isDiagonal()
     {
-        return angle;
+        return ordinal()%2==1;
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package chess;
+
+/**
+ * Moves packed into a single int so they can be kept in plain int arrays
+ * instead of lists of Locations. Squares are numbered 0 to 63, row*8+col,
+ * so 0 is the top left corner where black's queenside rook starts. The
+ * move type is one of the Position move types and the promotion is what a
+ * pawn turns into, if anything.
+ *
+ * bits 0-5: from square, bits 6-11: to square, bits 12-15: move type,
+ * bits 16-18: promotion type ordinal + 1, or 0 for none
+ */
+public final class Move
+{
+    public static final int NONE = 0; //from and to can never both be 0
+    public static final int MAX_MOVES = 256; //no position has more legal moves than this
+
+    private static final Type[] TYPES = Type.values();
+
+    private Move()
+    {
+    }
+
+    /**
+     * Packs a move into an int
+     * @param from the square the piece is on
+     * @param to the square it goes to
+     * @param moveType the type of move, one of the Position move types
+     * @param promotion what a pawn turns into, or null
+     * @return the move
+     */
+    public static int create(int from, int to, int moveType, Type promotion)
+    {
+        int promo = promotion==null ? 0 : promotion.ordinal()+1;
+        return from | to<<6 | moveType<<12 | promo<<16;
+    }
+
+    /**
+     * Gets the square a move starts on
+     * @param move the move
+     * @return the square, row*8+col
+     */
+    public static int from(int move)
+    {
+        return move&63;
+    }
+
+    /**
+     * Gets the square a move ends on
+     * @param move the move
+     * @return the square, row*8+col
+     */
+    public static int to(int move)
+    {
+        return (move>>>6)&63;
+    }
+
+    /**
+     * Gets the type of a move
+     * @param move the move
+     * @return the type, one of the Position move types
+     */
+    public static int type(int move)
+    {
+        return (move>>>12)&15;
+    }
+
+    /**
+     * Gets what a pawn turns into in a move
+     * @param move the move
+     * @return the type or null if it isn't a promotion
+     */
+    public static Type promotion(int move)
+    {
+        int promo = (move>>>16)&7;
+        return promo==0 ? null : TYPES[promo-1];
+    }
+
+    /**
+     * Gets the square number of a location
+     * @param loc the location
+     * @return the square, row*8+col
+     */
+    public static int square(Location loc)
+    {
+        return loc.getRow()*Chess.COLUMNS+loc.getCol();
+    }
+
+    /**
+     * Gets the location of a square number
+     * @param square the square, row*8+col
+     * @return the location
+     */
+    public static Location location(int square)
+    {
+        return new Location(square/Chess.COLUMNS,square%Chess.COLUMNS);
+    }
+
+    /**
+     * Writes a move the way engines and perft tools do, like e2e4 or e7e8q
+     * @param move the move
+     * @return the move written out
+     */
+    public static String toString(int move)
+    {
+        if (move==NONE)
+            return "0000";
+        String s = Location.LocToNot(location(from(move)))+Location.LocToNot(location(to(move)));
+        Type promotion = promotion(move);
+        if (promotion!=null)
+            s+=promotion.toNotation().toLowerCase();
+        return s;
+    }
+}
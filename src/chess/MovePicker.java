@@ -0,0 +1,257 @@
+package chess;
+
+/**
+ * This hands the search the moves of a position one at a time, best looking
+ * first, so alpha-beta gets its cutoffs as early as it can. First comes the
+ * move from the transposition table (or the principal variation), then the
+ * captures and promotions, biggest victim and smallest attacker first, then
+ * the killer moves, quiet moves that caused a cutoff at the same ply, and
+ * last the rest of the quiet moves, the ones with the best history first.
+ *
+ * Moves are only generated when their stage comes up, so a cutoff on the
+ * table move or a capture means the quiet moves are never generated at all,
+ * and each stage only picks the best move left rather than sorting the lot.
+ * The table move and the killers are checked with Position.isLegal since
+ * they come from other positions.
+ *
+ * The search keeps one picker for each ply, made up front, and starts it
+ * again for each position, so picking moves allocates nothing.
+ */
+public class MovePicker
+{
+    //stages
+    private static final int FIRST = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int GENERATE_QUIETS = 4;
+    private static final int QUIETS = 5;
+    private static final int DONE = 6;
+
+    public static final int KILLER_SLOTS = 2;
+    private static final int VICTIM_SCALE = 1024; //more than any attacker's value
+
+    private final int[] moves;
+    private final int[] scores;
+    private Position position;
+    private int[] history;
+    private int[] killers;
+    private int firstMove;
+    private int stage;
+    private int index;
+    private int count;
+    private int killerIndex;
+    private boolean capturesOnly;
+
+    /**
+     * Makes a picker for one ply of a search
+     */
+    public MovePicker()
+    {
+        moves = new int[Move.MAX_MOVES];
+        scores = new int[Move.MAX_MOVES];
+    }
+
+    /**
+     * Starts picking the moves of a position as it is now. The position
+     * can't change until the moves are all picked, except for moves made and
+     * taken back again between them.
+     * @param p the position
+     * @param first the move to try before any other, or Move.NONE
+     * @param killerMoves the killers for this ply, KILLER_SLOTS of them with
+     * Move.NONE in the empty ones
+     * @param historyTable the history scores, indexed by historyIndex
+     */
+    public void start(Position p, int first, int[] killerMoves, int[] historyTable)
+    {
+        position = p;
+        firstMove = first;
+        killers = killerMoves;
+        history = historyTable;
+        stage = FIRST;
+        index = 0;
+        count = 0;
+        killerIndex = 0;
+        capturesOnly = false;
+    }
+
+    /**
+     * Starts picking just the captures and promotions of a position, best
+     * first, for the quiescence search
+     * @param p the position
+     */
+    public void startCaptures(Position p)
+    {
+        position = p;
+        firstMove = Move.NONE;
+        stage = GENERATE_CAPTURES;
+        index = 0;
+        count = 0;
+        capturesOnly = true;
+    }
+
+    /**
+     * Gets the next move to try
+     * @return the move, or Move.NONE once every legal move has been given
+     */
+    public int next()
+    {
+        while (true)
+        {
+            switch (stage)
+            {
+                case FIRST:
+                    stage = GENERATE_CAPTURES;
+                    if (firstMove!=Move.NONE&&position.isLegal(firstMove))
+                        return firstMove;
+                    firstMove = Move.NONE;
+                    break;
+                case GENERATE_CAPTURES:
+                    stage = CAPTURES;
+                    count = position.generateCaptures(moves,0);
+                    index = 0;
+                    scoreCaptures();
+                    break;
+                case CAPTURES:
+                    if (index<count)
+                    {
+                        int move = pickBest();
+                        if (move!=firstMove)
+                            return move;
+                        break;
+                    }
+                    stage = capturesOnly ? DONE : KILLERS;
+                    break;
+                case KILLERS:
+                    if (killerIndex<KILLER_SLOTS)
+                    {
+                        int move = killers[killerIndex++];
+                        if (move!=Move.NONE&&move!=firstMove&&!isCapture(move)&&position.isLegal(move))
+                            return move;
+                        break;
+                    }
+                    stage = GENERATE_QUIETS;
+                    break;
+                case GENERATE_QUIETS:
+                    stage = QUIETS;
+                    count = position.generateQuiets(moves,0);
+                    index = 0;
+                    scoreQuiets();
+                    break;
+                case QUIETS:
+                    if (index<count)
+                    {
+                        int move = pickBest();
+                        if (move!=firstMove&&!isKiller(move))
+                            return move;
+                        break;
+                    }
+                    stage = DONE;
+                    break;
+                default:
+                    return Move.NONE;
+            }
+        }
+    }
+
+    /**
+     * Determines whether a move takes something or promotes, which is what
+     * the capture stage gives. A killer that is one has already been tried
+     * there.
+     * @param move the move
+     * @return whether it is a capture or promotion
+     */
+    public boolean isCapture(int move)
+    {
+        int to = Move.to(move);
+        return Move.type(move)==Position.EN_PASSANT||Move.promotion(move)!=null
+            ||position.getPiece(to/Chess.COLUMNS,to%Chess.COLUMNS)!=null;
+    }
+
+    /**
+     * Gets where a move goes in a history table: the color moving and the
+     * squares it goes from and to
+     * @param color the color moving
+     * @param move the move
+     * @return the index
+     */
+    public static int historyIndex(PieceColor color, int move)
+    {
+        return color.ordinal()<<12|Move.from(move)<<6|Move.to(move);
+    }
+
+    /**
+     * Gets how big a history table needs to be
+     * @return the size
+     */
+    public static int historySize()
+    {
+        return PieceColor.values().length<<12;
+    }
+
+    private boolean isKiller(int move)
+    {
+        for (int i = 0; i < KILLER_SLOTS; i++)
+            if (killers[i]==move)
+                return true;
+        return false;
+    }
+
+    /**
+     * Scores the captures most valuable victim, least valuable attacker: the
+     * value of what is taken, and of what a pawn becomes, counts far more
+     * than the value of the piece taking it. The values are the ones see
+     * uses, so the captures are tried in the order the search judges them
+     * by. A king counts as the least valuable attacker, since it can only
+     * take what isn't defended.
+     */
+    private void scoreCaptures()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            int move = moves[i];
+            int from = Move.from(move);
+            int to = Move.to(move);
+            Piece victim = position.getPiece(to/Chess.COLUMNS,to%Chess.COLUMNS);
+            int value = 0;
+            if (victim!=null)
+                value = Evaluation.exchangeValue(victim.getType());
+            else if (Move.type(move)==Position.EN_PASSANT)
+                value = Evaluation.exchangeValue(Type.PAWN);
+            Type promotion = Move.promotion(move);
+            if (promotion!=null)
+                value+=Evaluation.exchangeValue(promotion);
+            Type attacker = position.getPiece(from/Chess.COLUMNS,from%Chess.COLUMNS).getType();
+            scores[i] = value*VICTIM_SCALE-(attacker==Type.KING ? 0 : Evaluation.exchangeValue(attacker));
+        }
+    }
+
+    /**
+     * Scores the quiet moves by how often they caused cutoffs before
+     */
+    private void scoreQuiets()
+    {
+        PieceColor color = position.colorGoing();
+        for (int i = 0; i < count; i++)
+            scores[i] = history[historyIndex(color,moves[i])];
+    }
+
+    /**
+     * Swaps the best scoring move left to the front of what is left and
+     * gives it
+     * @return the move
+     */
+    private int pickBest()
+    {
+        int best = index;
+        for (int i = index+1; i < count; i++)
+            if (scores[i]>scores[best])
+                best = i;
+        int move = moves[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        index++;
+        return move;
+    }
+}
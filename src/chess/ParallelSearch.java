@@ -0,0 +1,281 @@
+package chess;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This searches with more than one thread (the "lazy SMP" way). Every thread
+ * searches the same position with its own Search and its own copy of the
+ * position, and they only talk to each other through the transposition table
+ * they share. The helper threads start their deepening at different depths,
+ * so they fill the table with things the main search will want soon and it
+ * gets to skip them. The main search, on the thread that called search,
+ * decides when everyone stops. The move played is from whichever thread got
+ * deepest, and the listener hears about that thread's last depth too if it
+ * wasn't the main one.
+ *
+ * The number of threads is set when it is made; the default is one per core,
+ * or -Dchess.threads if that is set.
+ */
+public class ParallelSearch
+{
+    public static final int DEFAULT_THREADS = Math.max(1,Integer.getInteger("chess.threads",
+            Runtime.getRuntime().availableProcessors()));
+
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+    private final Future<?>[] futures;
+    private Search.Listener listener;
+
+    private int bestMove;
+    private int score;
+    private int depth;
+    private long nodes;
+    private int[] principalVariation = new int[0];
+
+    /**
+     * Makes a search with the default number of threads and a table of the
+     * default size
+     */
+    public ParallelSearch()
+    {
+        this(DEFAULT_THREADS);
+    }
+
+    /**
+     * Makes a search with a table of the default size
+     * @param threads how many threads to search with, at least 1
+     */
+    public ParallelSearch(int threads)
+    {
+        this(threads,new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES));
+    }
+
+    /**
+     * Makes a search
+     * @param threads how many threads to search with, at least 1
+     * @param t the transposition table they all share
+     */
+    public ParallelSearch(int threads, TranspositionTable t)
+    {
+        table = t;
+        searches = new Search[Math.max(1,threads)];
+        for (int i = 0; i < searches.length; i++)
+            searches[i] = new Search(table);
+        futures = new Future<?>[searches.length];
+        helpers = searches.length==1 ? null : Executors.newFixedThreadPool(searches.length-1,
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread t = new Thread(r,"search helper");
+                        t.setDaemon(true); //never keeps the program open
+                        return t;
+                    }
+                });
+    }
+
+    /**
+     * Finds the best move for the color going with all the threads, until one
+     * of the limits is reached. The limits are counted by the main search.
+     * @param p the position, which is put back the way it was at the end
+     * @param maxDepth the deepest to search
+     * @param millis the most time to take, or 0 for no limit
+     * @param nodeLimit the most positions the main search looks at, or 0 for
+     * no limit
+     * @return the best move, or Move.NONE if there are no legal moves
+     */
+    public int search(Position p, int maxDepth, long millis, long nodeLimit)
+    {
+        table.newSearch();
+        for (Search s: searches) //before any start, so countNodes never counts the last search
+            s.clearNodes();
+        for (int i = 1; i < searches.length; i++)
+        {
+            final Search helper = searches[i];
+            final Position copy = new Position(p);
+            final int start = 1+i%2; //half of them start a move deeper
+            final int max = maxDepth;
+            futures[i] = helpers.submit(new Runnable()
+            {
+                public void run()
+                {
+                    helper.search(copy,start,max,0,0);
+                }
+            });
+        }
+        searches[0].search(p,1,maxDepth,millis,nodeLimit);
+        for (int i = 1; i < searches.length; i++)
+            finish(i);
+
+        //take the deepest search that finished, the main one if it's a tie
+        Search best = searches[0];
+        nodes = 0;
+        for (Search s: searches)
+        {
+            nodes += s.getNodes();
+            if (s.getDepth()>best.getDepth()&&s.getBestMove()!=Move.NONE)
+                best = s;
+        }
+        bestMove = best.getBestMove();
+        score = best.getScore();
+        depth = best.getDepth();
+        principalVariation = best.getPrincipalVariation();
+        if (best!=searches[0]&&listener!=null) //so the last line of best play starts with the move played
+            listener.depthDone(depth,score,principalVariation,principalVariation.length);
+        return bestMove;
+    }
+
+    /**
+     * Stops a helper and waits for it. The helper might not have started
+     * searching yet when it is first told to stop, so it keeps being told
+     * until it is done.
+     * @param i which helper
+     */
+    private void finish(int i)
+    {
+        while (true)
+        {
+            searches[i].stop();
+            try
+            {
+                futures[i].get(1,TimeUnit.MILLISECONDS);
+                return;
+            }
+            catch (TimeoutException ex)
+            {}
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (ExecutionException ex)
+            {
+                throw new RuntimeException(ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stops the search from another thread. The best move found so far is
+     * still returned.
+     */
+    public void stop()
+    {
+        for (Search s: searches)
+            s.stop();
+    }
+
+    /**
+     * Changes how long the search going on can take, from another thread.
+     * Only the main search keeps time, so only it needs telling.
+     * @param millis the most time to take from now on
+     */
+    public void setTimeLimit(long millis)
+    {
+        searches[0].setTimeLimit(millis);
+    }
+
+    /**
+     * Sets what hears about each depth the main search finishes, and about
+     * the depth the move comes from at the end if a helper got deeper
+     * @param l the listener, or null for nothing
+     */
+    public void setListener(Search.Listener l)
+    {
+        listener = l;
+        searches[0].setListener(l);
+    }
+
+    /**
+     * Adds up how many positions all the threads have looked at so far in
+     * the search going on. It is only a rough count while they are running.
+     * @return the number of nodes
+     */
+    public long countNodes()
+    {
+        long count = 0;
+        for (Search s: searches)
+            count += s.getNodes();
+        return count;
+    }
+
+    /**
+     * Stops the helper threads for good
+     */
+    public void shutdown()
+    {
+        if (helpers!=null)
+            helpers.shutdownNow();
+    }
+
+    /**
+     * Gets the value of the best move from the last search, for the color
+     * that was going, in hundredths of a pawn. Mates are near +/-MATE.
+     * @return the value
+     */
+    public int getScore()
+    {
+        return score;
+    }
+
+    /**
+     * Gets the best move from the last search
+     * @return the move
+     */
+    public int getBestMove()
+    {
+        return bestMove;
+    }
+
+    /**
+     * Gets the deepest search that finished
+     * @return the depth
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Gets how many positions all the threads looked at in the last search
+     * @return the number of nodes
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * Gets the line of best play from the last search
+     * @return the moves, starting with the best move
+     */
+    public int[] getPrincipalVariation()
+    {
+        return principalVariation.clone();
+    }
+
+    /**
+     * Gets how many threads this searches with
+     * @return the number of threads
+     */
+    public int getThreads()
+    {
+        return searches.length;
+    }
+
+    /**
+     * Gets the transposition table the threads share
+     * @return the table
+     */
+    public TranspositionTable getTable()
+    {
+        return table;
+    }
+}
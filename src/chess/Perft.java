@@ -0,0 +1,151 @@
+package chess;
+
+/**
+ * This counts every position reachable in some number of moves and checks
+ * the counts against the well known right answers, which catches just about
+ * any mistake in the rules. It also says how fast the moves were made so we
+ * can tell if a change made things slower.
+ *
+ * Run it with an optional max depth, or with a position name and depth and
+ * "divide" to get the count under each first move.
+ */
+public final class Perft
+{
+    //name, FEN and the right node counts for depth 1, 2, 3...
+    private static final String[] NAMES = {"start","kiwipete","position3",
+        "position4","position5","position6"};
+    private static final String[] SETUPS = {
+        Fen.START,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"};
+    private static final long[][] EXPECTED = {
+        {20,400,8902,197281,4865609,119060324L},
+        {48,2039,97862,4085603,193690690L},
+        {14,191,2812,43238,674624,11030083L,178633661L},
+        {6,264,9467,422333,15833292L},
+        {44,1486,62379,2103487,89941194L},
+        {46,2079,89890,3894594,164075551L}};
+
+    public static void main(String[] args)
+    {
+        if (args.length>=2)
+        {
+            Position position = position(args[0]);
+            int depth = Integer.parseInt(args[1]);
+            if (args.length>=3 && args[2].equals("divide"))
+                divide(position,depth);
+            else
+                run(args[0],position,depth,-1);
+            return;
+        }
+        int maxDepth = 4;
+        if (args.length==1)
+            maxDepth = Integer.parseInt(args[0]);
+        boolean allRight = true;
+        for (int i = 0; i < NAMES.length; i++)
+        {
+            int depth = Math.min(maxDepth,EXPECTED[i].length);
+            allRight &= run(NAMES[i],position(NAMES[i]),depth,EXPECTED[i][depth-1]);
+        }
+        if (!allRight)
+            System.exit(1);
+    }
+
+    /**
+     * Counts the positions at the end of every sequence of depth moves
+     * @param position the position to start from, left the same at the end
+     * @param depth the number of moves
+     * @return the number of positions
+     */
+    public static long perft(Position position, int depth)
+    {
+        return perft(position,depth,new int[depth+1][Move.MAX_MOVES]);
+    }
+
+    /**
+     * Does the counting for perft, with one array of moves for every depth
+     * so nothing gets allocated on the way
+     * @param position the position to start from
+     * @param depth the number of moves
+     * @param moves the arrays of moves, one for every depth
+     * @return the number of positions
+     */
+    private static long perft(Position position, int depth, int[][] moves)
+    {
+        if (depth==0)
+            return 1;
+        int count = position.generateMoves(moves[depth],0);
+        if (depth==1)
+            return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++)
+        {
+            position.makeMove(moves[depth][i]);
+            nodes+=perft(position,depth-1,moves);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Prints the count under each first move, which is how you find the
+     * move the rules get wrong when a count is off
+     * @param position the position to start from
+     * @param depth the number of moves
+     */
+    public static void divide(Position position, int depth)
+    {
+        long total = 0;
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = position.generateMoves(moves,0);
+        for (int i = 0; i < count; i++)
+        {
+            position.makeMove(moves[i]);
+            long nodes = perft(position,depth-1);
+            position.unmakeMove();
+            System.out.println(Move.toString(moves[i])+": "+nodes);
+            total+=nodes;
+        }
+        System.out.println("total: "+total);
+    }
+
+    /**
+     * Runs perft once, printing the count, the time it took and the speed
+     * @param name the name of the position
+     * @param position the position
+     * @param depth the number of moves
+     * @param expected the right count, or -1 if it isn't known
+     * @return whether the count was right
+     */
+    private static boolean run(String name, Position position, int depth, long expected)
+    {
+        long start = System.nanoTime();
+        long nodes = perft(position,depth);
+        long time = System.nanoTime()-start;
+        long nps = nodes*1000000000L/Math.max(1,time);
+        String line = name+" depth "+depth+": "+nodes+" nodes in "
+                +time/1000000+" ms ("+nps+" nodes/sec)";
+        boolean right = expected<0||nodes==expected;
+        if (!right)
+            line+=" WRONG, should be "+expected;
+        System.out.println(line);
+        return right;
+    }
+
+    /**
+     * Gets one of the reference positions by name, or reads the name as FEN
+     * if it is not one of them
+     * @param name the name of the position or its FEN
+     * @return the position
+     */
+    private static Position position(String name)
+    {
+        for (int i = 0; i < NAMES.length; i++)
+            if (NAMES[i].equals(name))
+                return Fen.parse(SETUPS[i]);
+        return Fen.parse(name);
+    }
+}
@@ -0,0 +1,150 @@
+package chess;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One game from a PGN file: the tags, the moves packed like Move does, and
+ * the result. The moves are the ones played from the starting position, so
+ * playing them in order with Position.makeMove gives back the game. If a
+ * move in the file could not be read, the game keeps the moves before it
+ * and says what went wrong in getError.
+ */
+public class PgnGame
+{
+    public static final String UNKNOWN = "*"; //the result of a game still going
+
+    private final LinkedHashMap<String,String> tags;
+    private int[] moves;
+    private int moveCount;
+    private String result;
+    private String error;
+
+    /**
+     * Makes a game with no tags or moves
+     */
+    public PgnGame()
+    {
+        tags = new LinkedHashMap<>();
+        moves = new int[128];
+        result = UNKNOWN;
+    }
+
+    /**
+     * Gets the value of a tag
+     * @param name the name of the tag, like White or Date
+     * @return the value, or null if the game doesn't have it
+     */
+    public String getTag(String name)
+    {
+        return tags.get(name);
+    }
+
+    /**
+     * Sets the value of a tag
+     * @param name the name of the tag
+     * @param value the value
+     */
+    public void setTag(String name, String value)
+    {
+        tags.put(name,value);
+    }
+
+    /**
+     * Gets all the tags, in the order they were set
+     * @return the tags, which can't be changed
+     */
+    public Map<String,String> getTags()
+    {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    /**
+     * Gets the number of moves (1 move = 1 turn, not 1 cycle of moves)
+     * @return the number of moves
+     */
+    public int getMoveCount()
+    {
+        return moveCount;
+    }
+
+    /**
+     * Gets one of the moves
+     * @param i which move, from 0 to getMoveCount()-1
+     * @return the move, packed like Move does
+     */
+    public int getMove(int i)
+    {
+        return moves[i];
+    }
+
+    /**
+     * Adds a move to the end of the game
+     * @param move the move, packed like Move does
+     */
+    public void addMove(int move)
+    {
+        if (moveCount==moves.length)
+        {
+            int[] bigger = new int[moves.length*2];
+            System.arraycopy(moves,0,bigger,0,moveCount);
+            moves = bigger;
+        }
+        moves[moveCount++] = move;
+    }
+
+    /**
+     * Gets the result
+     * @return 1-0, 0-1, 1/2-1/2 or * if it isn't known
+     */
+    public String getResult()
+    {
+        return result;
+    }
+
+    public void setResult(String r)
+    {
+        result = r;
+    }
+
+    /**
+     * Gets what went wrong reading the game
+     * @return the problem, or null if every move was legal
+     */
+    public String getError()
+    {
+        return error;
+    }
+
+    public void setError(String e)
+    {
+        error = e;
+    }
+
+    /**
+     * Makes the position the game starts from, which is the one in its FEN
+     * tag if it has one
+     * @return the position
+     * @throws IllegalArgumentException if the FEN tag can't be read
+     */
+    public Position getStartPosition()
+    {
+        String fen = getTag("FEN");
+        if (fen!=null)
+            return Fen.parse(fen);
+        return new Position(Chess.startingPosition());
+    }
+
+    /**
+     * Makes the position after all the moves
+     * @return the position
+     */
+    public Position getEndPosition()
+    {
+        Position position = getStartPosition();
+        for (int i = 0; i < moveCount; i++)
+            position.makeMove(moves[i]);
+        return position;
+    }
+}
@@ -0,0 +1,382 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This reads PGN files one game at a time, so a file of millions of games
+ * never has to fit in memory. It reads through a buffer of a fixed size,
+ * either filled from a stream or mapped from a file a window at a time, and
+ * every move is checked against the legal moves as it is read.
+ *
+ * Comments, variations, annotations and move numbers are skipped; what is
+ * kept is the tags, the moves of the main line and the result. A game with
+ * a move that can't be read still comes back, with the moves before it and
+ * the problem in getError, and reading goes on with the next game.
+ *
+ * Reading a game allocates the game and its tags and little else: the same
+ * position is used for every game, with the moves taken back when the next
+ * game is read. Until then getPosition gives the position the game ended
+ * on, so it doesn't have to be played again.
+ */
+public class PgnReader implements Closeable
+{
+    public static final int BUFFER_BYTES = 1<<16;
+    public static final int MAP_BYTES = 1<<26; //how much of a file is mapped at once
+
+    private final InputStream in;
+    private final FileChannel channel;
+    private final long size;
+    private long mapped;
+    private ByteBuffer buffer;
+    private boolean started;
+
+    private final Position start;
+    private int startMoves; //the moves of the last game still made on start
+    private Position position;
+    private final int[] moves;
+    private final StringBuilder token;
+    private byte[] text;
+
+    /**
+     * Makes a reader for a stream. It does its own buffering, so the stream
+     * doesn't need to.
+     * @param stream the stream
+     */
+    public PgnReader(InputStream stream)
+    {
+        in = stream;
+        channel = null;
+        size = 0;
+        buffer = ByteBuffer.wrap(new byte[BUFFER_BYTES]);
+        buffer.limit(0);
+        start = new Position(Chess.startingPosition());
+        moves = new int[Move.MAX_MOVES];
+        token = new StringBuilder();
+        text = new byte[256];
+    }
+
+    /**
+     * Makes a reader for a file, which is mapped into memory MAP_BYTES at a
+     * time rather than read
+     * @param file the file
+     * @throws IOException if the file can't be opened
+     */
+    public PgnReader(File file) throws IOException
+    {
+        in = null;
+        channel = new RandomAccessFile(file,"r").getChannel();
+        size = channel.size();
+        buffer = ByteBuffer.allocate(0);
+        start = new Position(Chess.startingPosition());
+        moves = new int[Move.MAX_MOVES];
+        token = new StringBuilder();
+        text = new byte[256];
+    }
+
+    /**
+     * Reads the next game
+     * @return the game, or null if there are no more
+     * @throws IOException if the file can't be read
+     */
+    public PgnGame next() throws IOException
+    {
+        for (; startMoves > 0; startMoves--)
+            start.unmakeMove();
+        position = null;
+        if (!started)
+        {
+            started = true;
+            if (peek()==0xEF) //the byte order mark some programs put at the start
+                for (int i = 0; i < 3; i++)
+                    read();
+        }
+        PgnGame game = null;
+        Position position = null;
+        try
+        {
+            int c;
+            while ((c = skipSpace())!=-1)
+            {
+                if (c=='[')
+                {
+                    if (position!=null) //the next game, this one had no result
+                        return game;
+                    if (game==null)
+                        game = new PgnGame();
+                    read();
+                    readTag(game);
+                    continue;
+                }
+                if (game==null)
+                    game = new PgnGame();
+                if (position==null)
+                    position = startPosition(game);
+                switch (c)
+                {
+                    case '{':
+                        skipPast('}');
+                        break;
+                    case ';':
+                    case '%':
+                        skipPast('\n');
+                        break;
+                    case '(':
+                        skipVariation();
+                        break;
+                    case ')':
+                    case ']':
+                        read();
+                        break;
+                    default:
+                        readToken();
+                        if (isResult())
+                        {
+                            game.setResult(token.toString());
+                            return game;
+                        }
+                        readMove(game,position);
+                }
+            }
+            return game;
+        }
+        finally
+        {
+            this.position = position;
+            if (position==start)
+                startMoves = game.getMoveCount();
+        }
+    }
+
+    /**
+     * Gets the position the last game read ended on, after its last move or
+     * the move before the one that couldn't be read. It is only good until
+     * the next game is read, and mustn't be changed.
+     * @return the position, or null if the game had no moves or result
+     */
+    public Position getPosition()
+    {
+        return position;
+    }
+
+    /**
+     * Gets the position a game starts from: the one position kept for all the
+     * games that start from the beginning, or the one in the FEN tag
+     * @param game the game, with its tags read
+     * @return the position, with no moves made on it
+     */
+    private Position startPosition(PgnGame game)
+    {
+        if (game.getTag("FEN")==null)
+            return start;
+        try
+        {
+            return game.getStartPosition();
+        }
+        catch (IllegalArgumentException e)
+        {
+            game.setError(e.getMessage());
+            return start;
+        }
+    }
+
+    /**
+     * Plays the move that was just read, if it is one, unless the game
+     * already has a move that couldn't be read
+     * @param game the game
+     * @param position the position the move is made in
+     */
+    private void readMove(PgnGame game, Position position)
+    {
+        int i = 0;
+        while (i<token.length()&&Character.isDigit(token.charAt(i)))
+            i++;
+        if (i<token.length()&&token.charAt(i)=='.') //a move number, maybe with the move after it
+        {
+            while (i<token.length()&&token.charAt(i)=='.')
+                i++;
+            token.delete(0,i);
+        }
+        else if (i==token.length()) //a move number without its dots
+            return;
+        if (token.length()==0||token.charAt(0)=='$'||game.getError()!=null)
+            return;
+        int move = San.parse(position,token,moves);
+        if (move==Move.NONE)
+        {
+            game.setError("can't play "+token+" on move "+(position.getTurn()/2+1));
+            return;
+        }
+        position.makeMove(move);
+        game.addMove(move);
+    }
+
+    /**
+     * Reads a tag, after its [
+     * @param game the game the tag goes in
+     * @throws IOException if the file can't be read
+     */
+    private void readTag(PgnGame game) throws IOException
+    {
+        skipSpace();
+        token.setLength(0);
+        int c;
+        while ((c = peek())>' '&&c!='"'&&c!=']')
+            token.append((char)read());
+        String name = token.toString();
+        if (skipSpace()!='"')
+        {
+            skipPast(']');
+            return;
+        }
+        read();
+        int length = 0;
+        while ((c = read())!=-1&&c!='"'&&c!='\n')
+        {
+            if (c=='\\'&&(peek()=='"'||peek()=='\\'))
+                c = read();
+            if (length==text.length)
+            {
+                byte[] bigger = new byte[text.length*2];
+                System.arraycopy(text,0,bigger,0,length);
+                text = bigger;
+            }
+            text[length++] = (byte)c;
+        }
+        game.setTag(name,new String(text,0,length,StandardCharsets.UTF_8));
+        if (c!='\n')
+            skipPast(']');
+    }
+
+    /**
+     * Reads a word of the movetext into token
+     * @throws IOException if the file can't be read
+     */
+    private void readToken() throws IOException
+    {
+        token.setLength(0);
+        int c;
+        while ((c = peek())>' '&&"[]{}();".indexOf(c)<0)
+            token.append((char)read());
+        if (token.length()==0) //something that isn't ascii, so can't be a move
+            read();
+    }
+
+    /**
+     * Determines whether the word just read is a result, which ends the game
+     * @return whether it is a result
+     */
+    private boolean isResult()
+    {
+        int length = token.length();
+        if (length==1)
+            return token.charAt(0)=='*';
+        if (length==3)
+            return (token.charAt(0)=='1'&&token.charAt(1)=='-'&&token.charAt(2)=='0')
+                ||(token.charAt(0)=='0'&&token.charAt(1)=='-'&&token.charAt(2)=='1');
+        return length==7&&token.indexOf("1/2-1/2")==0;
+    }
+
+    /**
+     * Skips a variation, after its (, with any variations inside it
+     * @throws IOException if the file can't be read
+     */
+    private void skipVariation() throws IOException
+    {
+        read();
+        int depth = 1;
+        int c;
+        while (depth>0&&(c = read())!=-1)
+        {
+            if (c=='(')
+                depth++;
+            else if (c==')')
+                depth--;
+            else if (c=='{')
+                skipPast('}');
+            else if (c==';')
+                skipPast('\n');
+        }
+    }
+
+    /**
+     * Skips everything up to and including a character
+     * @param end the character
+     * @throws IOException if the file can't be read
+     */
+    private void skipPast(int end) throws IOException
+    {
+        int c;
+        while ((c = read())!=-1&&c!=end);
+    }
+
+    /**
+     * Skips spaces and line breaks
+     * @return the next character, which isn't read yet, or -1 at the end
+     * @throws IOException if the file can't be read
+     */
+    private int skipSpace() throws IOException
+    {
+        int c;
+        while ((c = peek())!=-1&&c<=' ')
+            read();
+        return c;
+    }
+
+    private int read() throws IOException
+    {
+        if (!buffer.hasRemaining()&&!refill())
+            return -1;
+        return buffer.get()&0xFF;
+    }
+
+    private int peek() throws IOException
+    {
+        if (!buffer.hasRemaining()&&!refill())
+            return -1;
+        return buffer.get(buffer.position())&0xFF;
+    }
+
+    /**
+     * Gets more of the file into the buffer once it has all been read
+     * @return whether there was any more
+     * @throws IOException if the file can't be read
+     */
+    private boolean refill() throws IOException
+    {
+        if (channel!=null)
+        {
+            if (mapped>=size)
+                return false;
+            long length = Math.min(MAP_BYTES,size-mapped);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY,mapped,length);
+            mapped+=length;
+            return true;
+        }
+        int n = in.read(buffer.array());
+        if (n<=0)
+            return false;
+        buffer.clear();
+        buffer.limit(n);
+        return true;
+    }
+
+    /**
+     * Closes the file or stream
+     * @throws IOException if it can't be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (channel!=null)
+            channel.close();
+        else
+            in.close();
+    }
+}
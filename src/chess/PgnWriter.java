@@ -0,0 +1,129 @@
+package chess;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * This writes games out as PGN, the way PgnReader reads them: the seven
+ * tags every game has first, then any others, then the moves in standard
+ * algebraic notation with lines kept under 80 characters, then the result.
+ * Games are written as they are given, so there is no limit on how many.
+ */
+public class PgnWriter implements Closeable, Flushable
+{
+    public static final int LINE_LENGTH = 79;
+    private static final String[] ROSTER = {"Event","Site","Date","Round","White","Black","Result"};
+
+    private final Writer out;
+    private final int[] moves;
+    private int column;
+
+    /**
+     * Makes a writer for a stream. It does its own buffering, so the stream
+     * doesn't need to.
+     * @param stream the stream
+     */
+    public PgnWriter(OutputStream stream)
+    {
+        out = new BufferedWriter(new OutputStreamWriter(stream,StandardCharsets.UTF_8),PgnReader.BUFFER_BYTES);
+        moves = new int[Move.MAX_MOVES];
+    }
+
+    /**
+     * Writes a game
+     * @param game the game
+     * @throws IOException if it can't be written
+     */
+    public void write(PgnGame game) throws IOException
+    {
+        for (String name: ROSTER)
+        {
+            String value = name.equals("Result") ? game.getResult() : game.getTag(name);
+            writeTag(name,value==null ? "?" : value);
+        }
+        for (Map.Entry<String,String> tag: game.getTags().entrySet())
+            if (!isRoster(tag.getKey()))
+                writeTag(tag.getKey(),tag.getValue());
+        out.write('\n');
+
+        column = 0;
+        Position position = game.getStartPosition();
+        for (int i = 0; i < game.getMoveCount(); i++)
+        {
+            int move = game.getMove(i);
+            int number = position.getTurn()/2+1;
+            if (position.colorGoing()==PieceColor.WHITE)
+                writeWord(number+".");
+            else if (i==0)
+                writeWord(number+"...");
+            writeWord(San.toString(position,move,moves));
+            position.makeMove(move);
+        }
+        writeWord(game.getResult());
+        out.write("\n\n");
+    }
+
+    /**
+     * Writes a tag on its own line
+     * @param name the name
+     * @param value the value, which has its quotes and backslashes escaped
+     * @throws IOException if it can't be written
+     */
+    private void writeTag(String name, String value) throws IOException
+    {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\","\\\\").replace("\"","\\\""));
+        out.write("\"]\n");
+    }
+
+    /**
+     * Writes a word of the movetext, starting a new line if it won't fit on
+     * this one
+     * @param word the word
+     * @throws IOException if it can't be written
+     */
+    private void writeWord(String word) throws IOException
+    {
+        if (column>0&&column+1+word.length()>LINE_LENGTH)
+        {
+            out.write('\n');
+            column = 0;
+        }
+        if (column>0)
+        {
+            out.write(' ');
+            column++;
+        }
+        out.write(word);
+        column+=word.length();
+    }
+
+    private static boolean isRoster(String name)
+    {
+        for (String tag: ROSTER)
+            if (tag.equals(name))
+                return true;
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+}
@@ -7,8 +7,6 @@ package chess;
  */
 
 import java.awt.Image;
-import java.io.IOException;
-import javax.imageio.ImageIO;
 
 public class Piece implements Comparable
 {
@@ -138,33 +136,13 @@ public class Piece implements Comparable
     }
     
     /**
-     * Gets the image associated with this piece's type and color
+     * Gets the image associated with this piece's type and color, which is
+     * only read once for every type and color
      * @return the image of the piece
      */
     public Image getImage()
     {
-        try
-        {
-            return ImageIO.read(getClass().getResourceAsStream("/Pictures/"+imageName()));
-        }
-        catch (IOException ex)
-        {}
-        return null;
-    }
-    
-    /**
-     * Gets the name of the file where the image is based on the piece
-     * @return the string name of the image
-     */
-    private String imageName()
-    {
-        String s;
-        if (color==PieceColor.WHITE)
-            s = "W";
-        else
-            s = "B";
-        s+=type+".png";
-        return s;
+        return Sprites.getImage(type,color);
     }
     
     /**
@@ -340,6 +318,17 @@ enum PieceColor
         return toString().substring(0,1);
     }
     
+    /**
+     * Gets the other color
+     * @return black for white and white for black
+     */
+    public PieceColor opposite()
+    {
+        if (this==WHITE)
+            return BLACK;
+        else return WHITE;
+    }
+    
     public static PieceColor colorOf(String n)
     {
         for (PieceColor c: values())
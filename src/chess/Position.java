@@ -0,0 +1,1821 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This is the pure data version of the board: where the pieces are, whose
+ * turn it is and all the rules for moving them around. It has nothing to do
+ * with Swing, so the rules can run without a window, and Board and Square are
+ * just views over it.
+ *
+ * The pieces are kept twice: as Piece objects on a grid, which is what the
+ * rest of the game deals with, and as bitboards (see Bitboards), which is
+ * what finding moves and attacks works from.
+ */
+public class Position
+{
+    private final Piece[][] pieces;
+    private int turn;
+    private int fiftyMove;
+    private ByteBuffer history;
+    private int historyCount;
+    private int[] redo; //the moves undone, newest last, until a new move is made
+    private int redoCount;
+    private Piece justMoved;
+    private MoveState[] states;
+    private int ply;
+    private long hash;
+    private int castling;
+    private int passantFile;
+    private long[] hashes;
+    private int hashCount;
+    private final int[] kingRows;
+    private final int[] kingCols;
+    private final long[] bitboards; //a bitboard for each color and type, at color*TYPES+type
+    private final long[] colorBoards; //all the pieces of each color
+    private long occupied;
+    private int middlegame; //the Evaluation sums of the pieces on the board, kept up as they move
+    private int endgame;
+    private int phase;
+    private final int[] scratch = new int[Move.MAX_MOVES]; //for the questions that only count or look up moves
+    private final int[] gains = new int[34]; //for see, one for each piece that could take plus two
+    private GameStatus status; //null until someone asks, and again whenever anything changes
+
+    //move types
+    public static final int ILLEGAL_MOVE = -1;
+    public static final int KNIGHT_MOVE = 0;
+    public static final int ROOK_MOVE = 1;
+    public static final int BISHOP_MOVE = 2;
+    public static final int QUEEN_MOVE = 3;
+    public static final int KING_MOVE = 4;
+    public static final int KINGSIDE_CASTLING = 5;
+    public static final int QUEENSIDE_CASTLING = 10;
+    public static final int PAWN_MOVE = 6;
+    public static final int PAWN_FIRST_MOVE = 7;
+    public static final int PAWN_CAPTURE = 8;
+    public static final int EN_PASSANT = 9;
+
+    //draw types
+    public static final int STALEMATE = 0;
+    public static final int THREE_MOVE = 1;
+    public static final int FIFTY_MOVE = 2;
+    public static final int TWO_KINGS = 3;
+    public static final int NOT_DRAW = -1;
+
+    //the kinds of moves generate writes, which can be or'd together
+    private static final int CAPTURES = 1;
+    private static final int QUIETS = 2;
+    private static final int ALL_MOVES = CAPTURES|QUIETS;
+
+    /**
+     * The size of a position written by encode: 32 bytes for the squares, a
+     * nibble each, 1 for the color going and the castling rights, 1 for the en
+     * passant file, 2 for the fifty move count and 4 for the turn
+     */
+    public static final int ENCODED_BYTES = 40;
+    private static final String FIELD_END = ","; //ends the turn and fifty move fields of toString
+    private static final int TYPES = Type.values().length;
+    private static final Type[] TYPE_VALUES = Type.values();
+    private static final PieceColor[] COLORS = PieceColor.values();
+    private static final Type[] CHEAPEST_FIRST = {Type.PAWN,Type.KNIGHT,Type.BISHOP,Type.ROOK,Type.QUEEN,Type.KING};
+
+    /**
+     * This constructor takes in some pieces and puts them where their origin
+     * fields say they go
+     * @param start the pieces the game starts with
+     */
+    public Position(ArrayList<Piece> start)
+    {
+        pieces = new Piece[Chess.ROWS][Chess.COLUMNS];
+        kingRows = new int[PieceColor.values().length];
+        kingCols = new int[PieceColor.values().length];
+        bitboards = new long[PieceColor.values().length*TYPES];
+        colorBoards = new long[PieceColor.values().length];
+        turn = 0;
+        fiftyMove = 0;
+        for (Piece p: start)
+        {
+            Location loc = p.getOrigin();
+            pieces[loc.getRow()][loc.getCol()] = p;
+            if (p.hasJustMoved())
+                justMoved = p;
+        }
+        states = new MoveState[0];
+        ply = 0;
+        hashes = new long[16];
+        hashCount = 1;
+        rehash();
+        history = ByteBuffer.allocate(16*ENCODED_BYTES);
+        historyCount = 0;
+        remember();
+        redo = new int[16];
+    }
+
+    /**
+     * This makes a position out of the string made by toString
+     * @param position the string representation of a position
+     */
+    public Position(String position)
+    {
+        this(Chess.stringToPieces(getPiecePositionFromPos(position)));
+        turn = getTurnFromPos(position);
+        fiftyMove = getFiftyMoveFromPos(position);
+        rehash();
+        historyCount = 0;
+        remember();
+    }
+
+    /**
+     * This makes a position out of one written by encode, reading it from
+     * the buffer's position on
+     * @param buffer the buffer holding the position
+     * @return the position
+     */
+    public static Position decode(ByteBuffer buffer)
+    {
+        Position p = new Position(new ArrayList<Piece>());
+        p.load(buffer);
+        p.rehash();
+        p.historyCount = 0;
+        p.remember();
+        return p;
+    }
+
+    /**
+     * This copies everything about another position with its own pieces, so
+     * the copy can be played on without touching the original. Moves made
+     * before the copy can't be unmade on it.
+     * @param a the position being copied
+     */
+    public Position(Position a)
+    {
+        pieces = new Piece[Chess.ROWS][Chess.COLUMNS];
+        kingRows = a.kingRows.clone();
+        kingCols = a.kingCols.clone();
+        bitboards = a.bitboards.clone();
+        colorBoards = a.colorBoards.clone();
+        occupied = a.occupied;
+        middlegame = a.middlegame;
+        endgame = a.endgame;
+        phase = a.phase;
+        for (int i = 0; i < Chess.ROWS; i++)
+            for (int j = 0; j < Chess.COLUMNS; j++)
+                if (a.pieces[i][j]!=null)
+                {
+                    pieces[i][j] = new Piece(a.pieces[i][j]);
+                    if (a.pieces[i][j]==a.justMoved)
+                        justMoved = pieces[i][j];
+                }
+        turn = a.turn;
+        fiftyMove = a.fiftyMove;
+        states = new MoveState[0];
+        ply = 0;
+        hash = a.hash;
+        castling = a.castling;
+        passantFile = a.passantFile;
+        hashes = a.hashes.clone();
+        hashCount = a.hashCount;
+        history = ByteBuffer.allocate(a.history.capacity());
+        history.put(a.history.array(),0,a.historyCount*ENCODED_BYTES);
+        historyCount = a.historyCount;
+        redo = a.redo.clone();
+        redoCount = a.redoCount;
+    }
+
+    /**
+     * Gets the number turn it is (1 move = 1 turn, not 1 cycle of moves)
+     * @return turn the turn number
+     */
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    public void setTurn(int t)
+    {
+        turn = t;
+        rehash();
+        rememberAgain();
+    }
+
+    /**
+     * Gets the number of turns since the last capture or pawn move
+     * @return fiftyMove the count
+     */
+    public int getFiftyMove()
+    {
+        return fiftyMove;
+    }
+
+    public void setFiftyMove(int f)
+    {
+        fiftyMove = f;
+        rememberAgain();
+    }
+
+    /**
+     * This gets the piececolor whose turn it is currently.
+     * @return the piece whose move it is.
+     */
+    public PieceColor colorGoing()
+    {
+        if (turn%2==0)
+            return PieceColor.WHITE;
+        else return PieceColor.BLACK;
+    }
+
+    /**
+     * This gets the piece at a location
+     * @param loc the location of the piece
+     * @return the piece there or null
+     */
+    public Piece getPiece(Location loc)
+    {
+        if (!loc.isValid())
+            return null;
+        return pieces[loc.getRow()][loc.getCol()];
+    }
+
+    /**
+     * This gets the piece on a square without making a Location
+     * @param row the row of the square
+     * @param col the col of the square
+     * @return the piece there or null
+     */
+    public Piece getPiece(int row, int col)
+    {
+        return pieces[row][col];
+    }
+
+    /**
+     * This sets the value of the Piece at a given location
+     * @param p the piece to be put at that location
+     * @param loc the location of the piece
+     */
+    public void setPiece(Piece p, Location loc)
+    {
+        pieces[loc.getRow()][loc.getCol()] = p;
+        rehash();
+        rememberAgain();
+    }
+
+    /**
+     * This gets a piece at a given location and removes it from that location
+     * @param loc the location of the piece
+     * @return the piece removed
+     */
+    public Piece removePiece(Location loc)
+    {
+        Piece p = getPiece(loc);
+        setPiece(null,loc);
+        return p;
+    }
+
+    /**
+     * This gets the location of a given piece
+     * @param p the piece
+     * @return the location or null if nothing there
+     */
+    public Location getLocation(Piece p)
+    {
+        if (p==null)
+            return null;
+        for (int i = 0; i < Chess.ROWS; i++)
+            for (int j = 0; j < Chess.COLUMNS; j++)
+            {
+                Piece p1 = pieces[i][j];
+                if (p1!=null && p1.equals(p))
+                    return new Location(i,j);
+            }
+        return null;
+    }
+
+    /**
+     * Determines whether moving from a to b would put a pawn on the last rank
+     * @param a the location of the piece
+     * @param b the destination
+     * @return whether the move is a promotion
+     */
+    public boolean isPromotion(Location a, Location b)
+    {
+        Piece p = getPiece(a);
+        return p!=null && p.getType()==Type.PAWN
+            && ((p.white()&&b.getRow()==0)||(!p.white()&&b.getRow()==Chess.ROWS-1));
+    }
+
+    /**
+     * This moves a piece to a location where it can move to and remembers
+     * the position for three-move draws. This is the move of the actual game.
+     * @param a the location of the piece
+     * @param b the destination
+     * @param promotion what a pawn reaching the last rank becomes, null for queen
+     * @return the type of move made, or ILLEGAL_MOVE if it could not be made
+     */
+    public int movePiece(Location a, Location b, Type promotion)
+    {
+        int moveType = makeMove(a,b,promotion);
+        if (moveType!=ILLEGAL_MOVE)
+        {
+            remember();
+            redoCount = 0; //a new move, so the undone ones can't come back
+        }
+        return moveType;
+    }
+
+    /**
+     * This makes a move in place so it can be taken back exactly with
+     * unmakeMove, castling rooks, en passant, promotions and all. Nothing
+     * is recorded for three-move draws.
+     * @param a the location of the piece
+     * @param b the destination
+     * @param promotion what a pawn reaching the last rank becomes, null for queen
+     * @return the type of move made, or ILLEGAL_MOVE (and nothing happens)
+     * if the piece can't go there
+     */
+    public int makeMove(Location a, Location b, Type promotion)
+    {
+        Piece p = getPiece(a);
+        if (p==null)
+            return ILLEGAL_MOVE;
+        int moveType = canMoveTo(p,b);
+        if (moveType!=ILLEGAL_MOVE)
+            makeMove(a.getRow(),a.getCol(),b.getRow(),b.getCol(),moveType,promotion);
+        return moveType;
+    }
+
+    /**
+     * This does the work of makeMove once the type of the move is known
+     * @param fromRow the row of the piece
+     * @param fromCol the col of the piece
+     * @param toRow the row of the destination
+     * @param toCol the col of the destination
+     * @param moveType the type of move, from canMoveTo
+     * @param promotion what a pawn reaching the last rank becomes, null for queen
+     */
+    private void makeMove(int fromRow, int fromCol, int toRow, int toCol, int moveType, Type promotion)
+    {
+        status = null;
+        Piece p = pieces[fromRow][fromCol];
+        MoveState state = pushState();
+        state.moved = p;
+        state.fromRow = fromRow;
+        state.fromCol = fromCol;
+        state.toRow = toRow;
+        state.toCol = toCol;
+        state.moveType = moveType;
+        state.type = p.getType();
+        state.hadMoved = p.hasMoved();
+        state.justMoved = justMoved;
+        state.fiftyMove = fiftyMove;
+        state.captured = pieces[toRow][toCol];
+        state.capturedRow = toRow;
+        state.capturedCol = toCol;
+        state.rook = null;
+        state.hash = hash;
+        state.castling = castling;
+        state.passantFile = passantFile;
+
+        long h = hash^Zobrist.piece(p.getType(),p.getColor(),fromRow,fromCol);
+        toggle(p.getType(),p.getColor(),fromRow,fromCol);
+        if (state.captured!=null)
+        {
+            h ^= Zobrist.piece(state.captured.getType(),state.captured.getColor(),toRow,toCol);
+            toggle(state.captured.getType(),state.captured.getColor(),toRow,toCol);
+        }
+        if (state.captured!=null&&state.captured.isKing())
+            kingRows[state.captured.getColor().ordinal()] = -1;
+        if (p.isKing())
+        {
+            kingRows[p.getColor().ordinal()] = toRow;
+            kingCols[p.getColor().ordinal()] = toCol;
+        }
+        boolean fiftyMoveBreak = state.captured!=null||p.getType()==Type.PAWN;
+        pieces[toRow][toCol] = p;
+        pieces[fromRow][fromCol] = null;
+        p.setHasMoved(true);
+        if (p.getType()==Type.PAWN)
+        {
+            if (toRow==0||toRow==Chess.ROWS-1)
+            {
+                if (promotion==null)
+                    promotion = Type.QUEEN;
+                p.setType(promotion);
+            }
+            else if (moveType==EN_PASSANT)
+            {
+                state.captured = pieces[fromRow][toCol];
+                state.capturedRow = fromRow;
+                pieces[fromRow][toCol] = null;
+                h ^= Zobrist.piece(Type.PAWN,state.captured.getColor(),fromRow,toCol);
+                toggle(Type.PAWN,state.captured.getColor(),fromRow,toCol);
+            }
+        }
+        else if (moveType==KINGSIDE_CASTLING||moveType==QUEENSIDE_CASTLING)
+        {
+            if (moveType==KINGSIDE_CASTLING)
+            {
+                state.rookFromCol = toCol+1;
+                state.rookToCol = toCol-1;
+            }
+            else
+            {
+                state.rookFromCol = toCol-2;
+                state.rookToCol = toCol+1;
+            }
+            state.rook = pieces[toRow][state.rookFromCol];
+            pieces[toRow][state.rookToCol] = state.rook; //moves the rook
+            pieces[toRow][state.rookFromCol] = null;
+            h ^= Zobrist.piece(Type.ROOK,p.getColor(),toRow,state.rookFromCol)
+                ^Zobrist.piece(Type.ROOK,p.getColor(),toRow,state.rookToCol);
+            toggle(Type.ROOK,p.getColor(),toRow,state.rookFromCol);
+            toggle(Type.ROOK,p.getColor(),toRow,state.rookToCol);
+        }
+        h ^= Zobrist.piece(p.getType(),p.getColor(),toRow,toCol);
+        toggle(p.getType(),p.getColor(),toRow,toCol);
+        turn++;
+        if (fiftyMoveBreak)
+            fiftyMove = 0;
+        else fiftyMove++;
+        if (justMoved!=null)
+            justMoved.setHasJustMoved(false);
+        justMoved = null;
+        if (moveType==PAWN_FIRST_MOVE) //only a pawn that went two can be taken en passant
+        {
+            p.setHasJustMoved(true);
+            justMoved = p;
+        }
+        int newCastling = castlingRights();
+        int newPassantFile = passantFile(toRow,toCol);
+        h ^= Zobrist.castling(castling)^Zobrist.castling(newCastling);
+        h ^= Zobrist.passant(passantFile)^Zobrist.passant(newPassantFile);
+        castling = newCastling;
+        passantFile = newPassantFile;
+        hash = h^Zobrist.BLACK_TO_MOVE;
+        pushHash();
+    }
+
+    /**
+     * This makes a move packed into an int, like the ones from generateMoves,
+     * without checking it. It can be taken back with unmakeMove.
+     * @param move the move
+     */
+    public void makeMove(int move)
+    {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        makeMove(from/Chess.COLUMNS,from%Chess.COLUMNS,to/Chess.COLUMNS,to%Chess.COLUMNS,
+                Move.type(move),Move.promotion(move));
+    }
+
+    /**
+     * This takes back the last move made by makeMove, putting everything
+     * back exactly how it was
+     */
+    public void unmakeMove()
+    {
+        status = null;
+        MoveState state = states[--ply];
+        Piece p = state.moved;
+        pieces[state.fromRow][state.fromCol] = p;
+        pieces[state.toRow][state.toCol] = null;
+        toggle(p.getType(),p.getColor(),state.toRow,state.toCol);
+        toggle(state.type,p.getColor(),state.fromRow,state.fromCol);
+        p.setType(state.type);
+        p.setHasMoved(state.hadMoved);
+        p.setHasJustMoved(false);
+        if (state.captured!=null)
+        {
+            pieces[state.capturedRow][state.capturedCol] = state.captured;
+            toggle(state.captured.getType(),state.captured.getColor(),state.capturedRow,state.capturedCol);
+            if (state.captured.isKing())
+                kingRows[state.captured.getColor().ordinal()] = state.capturedRow;
+        }
+        if (p.isKing())
+        {
+            kingRows[p.getColor().ordinal()] = state.fromRow;
+            kingCols[p.getColor().ordinal()] = state.fromCol;
+        }
+        if (state.rook!=null)
+        {
+            pieces[state.toRow][state.rookFromCol] = state.rook;
+            pieces[state.toRow][state.rookToCol] = null;
+            toggle(Type.ROOK,p.getColor(),state.toRow,state.rookFromCol);
+            toggle(Type.ROOK,p.getColor(),state.toRow,state.rookToCol);
+        }
+        justMoved = state.justMoved;
+        if (justMoved!=null)
+            justMoved.setHasJustMoved(true);
+        turn--;
+        fiftyMove = state.fiftyMove;
+        hash = state.hash;
+        castling = state.castling;
+        passantFile = state.passantFile;
+        hashCount--;
+    }
+
+    /**
+     * Puts a piece on a square of the bitboards or takes it off, adding it
+     * to or taking it off the evaluation sums too
+     * @param type the type of the piece
+     * @param color the color of the piece
+     * @param row the row of the square
+     * @param col the col of the square
+     */
+    private void toggle(Type type, PieceColor color, int row, int col)
+    {
+        int square = row*Chess.COLUMNS+col;
+        long bit = 1L<<square;
+        int piece = color.ordinal()*TYPES+type.ordinal();
+        if ((bitboards[piece]&bit)==0)
+        {
+            middlegame += Evaluation.middlegame(piece,square);
+            endgame += Evaluation.endgame(piece,square);
+            phase += Evaluation.phase(type);
+        }
+        else
+        {
+            middlegame -= Evaluation.middlegame(piece,square);
+            endgame -= Evaluation.endgame(piece,square);
+            phase -= Evaluation.phase(type);
+        }
+        bitboards[piece] ^= bit;
+        colorBoards[color.ordinal()] ^= bit;
+        occupied ^= bit;
+    }
+
+    /**
+     * Scores the position for the color going, from the values and tables in
+     * Evaluation blended by the phase. The sums are kept up by makeMove and
+     * unmakeMove, so this doesn't look at the pieces.
+     * @return the score in hundredths of a pawn, more than 0 if the color
+     * going is better off
+     */
+    public int evaluate()
+    {
+        int value = Evaluation.taper(middlegame,endgame,phase);
+        return colorGoing()==PieceColor.WHITE ? value : -value;
+    }
+
+    /**
+     * Gets the bitboard of the pieces of a type and color
+     * @param type the type
+     * @param color the color
+     * @return the bitboard, bit row*8+col set for each piece
+     */
+    public long getBitboard(Type type, PieceColor color)
+    {
+        return bitboards[color.ordinal()*TYPES+type.ordinal()];
+    }
+
+    /**
+     * Gets the bitboard of all the pieces of a color
+     * @param color the color
+     * @return the bitboard
+     */
+    public long getBitboard(PieceColor color)
+    {
+        return colorBoards[color.ordinal()];
+    }
+
+    /**
+     * Gets the bitboard of every piece on the board
+     * @return the bitboard
+     */
+    public long getOccupied()
+    {
+        return occupied;
+    }
+
+    /**
+     * Gets the 64 bit Zobrist key of the position, which is the same for any
+     * two positions that are the same for the rules
+     * @return the key
+     */
+    public long getHash()
+    {
+        return hash;
+    }
+
+    /**
+     * Gets who can still castle which way, whether or not they can right now
+     * @return the rights, as Zobrist's WHITE_KINGSIDE and so on ORed together
+     */
+    public int getCastling()
+    {
+        return castling;
+    }
+
+    /**
+     * Figures out which castling rights are left from whether the kings and
+     * rooks on their original squares have moved
+     * @return the rights, made of the Zobrist castling rights bits
+     */
+    private int castlingRights()
+    {
+        int rights = 0;
+        if (unmoved(Type.KING,7,4))
+        {
+            if (unmoved(Type.ROOK,7,7))
+                rights |= Zobrist.WHITE_KINGSIDE;
+            if (unmoved(Type.ROOK,7,0))
+                rights |= Zobrist.WHITE_QUEENSIDE;
+        }
+        if (unmoved(Type.KING,0,4))
+        {
+            if (unmoved(Type.ROOK,0,7))
+                rights |= Zobrist.BLACK_KINGSIDE;
+            if (unmoved(Type.ROOK,0,0))
+                rights |= Zobrist.BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    /**
+     * Determines whether a piece of some type that has never moved is on a
+     * square, white on the bottom row and black on the top
+     * @param type the type of the piece
+     * @param row the row of the square
+     * @param col the col of the square
+     * @return whether it is there
+     */
+    private boolean unmoved(Type type, int row, int col)
+    {
+        Piece p = pieces[row][col];
+        return p!=null && p.getType()==type && !p.hasMoved() && p.white()==(row==Chess.ROWS-1);
+    }
+
+    /**
+     * Gets the file a pawn can be taken en passant on, which only counts if
+     * the pawn that just moved two has an enemy pawn right next to it
+     * @param row the row of the piece that just moved
+     * @param col the col of the piece that just moved
+     * @return the col of the pawn or -1 if there isn't one
+     */
+    private int passantFile(int row, int col)
+    {
+        if (justMoved==null||pieces[row][col]!=justMoved)
+            return -1;
+        for (int c = col-1; c <= col+1; c+=2)
+        {
+            if (c<0||c>=Chess.COLUMNS)
+                continue;
+            Piece p = pieces[row][c];
+            if (p!=null&&p.getType()==Type.PAWN&&!p.sameColor(justMoved))
+                return col;
+        }
+        return -1;
+    }
+
+    /**
+     * Works out the key, the rights, the bitboards and where the kings are
+     * from scratch, for when the position was changed some way other than by
+     * making a move
+     */
+    private void rehash()
+    {
+        status = null;
+        castling = castlingRights();
+        passantFile = -1;
+        hash = Zobrist.castling(castling);
+        kingRows[0] = kingRows[1] = -1;
+        Arrays.fill(bitboards,0);
+        Arrays.fill(colorBoards,0);
+        occupied = 0;
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+        for (int i = 0; i < Chess.ROWS; i++)
+            for (int j = 0; j < Chess.COLUMNS; j++)
+            {
+                Piece p = pieces[i][j];
+                if (p==null)
+                    continue;
+                if (p.isKing())
+                {
+                    kingRows[p.getColor().ordinal()] = i;
+                    kingCols[p.getColor().ordinal()] = j;
+                }
+                hash ^= Zobrist.piece(p.getType(),p.getColor(),i,j);
+                toggle(p.getType(),p.getColor(),i,j);
+                if (p==justMoved)
+                    passantFile = passantFile(i,j);
+            }
+        hash ^= Zobrist.passant(passantFile);
+        if (colorGoing()==PieceColor.BLACK)
+            hash ^= Zobrist.BLACK_TO_MOVE;
+        hashes[hashCount-1] = hash;
+    }
+
+    /**
+     * Puts the key of the position on the end of the history of keys
+     */
+    private void pushHash()
+    {
+        if (hashCount==hashes.length)
+        {
+            long[] bigger = new long[hashes.length*2];
+            System.arraycopy(hashes,0,bigger,0,hashes.length);
+            hashes = bigger;
+        }
+        hashes[hashCount++] = hash;
+    }
+
+    /**
+     * Counts how many times the position has happened, only looking back to
+     * the last capture or pawn move since nothing before that can repeat
+     * @return the number of times, at least 1
+     */
+    public int repetitions()
+    {
+        int count = 1;
+        int oldest = Math.max(0,hashCount-1-fiftyMove);
+        for (int i = hashCount-3; i >= oldest; i-=2)
+            if (hashes[i]==hash)
+                count++;
+        return count;
+    }
+
+    /**
+     * Gets the next free move state, making the stack bigger if it has to,
+     * so that making moves stops allocating once the stack is deep enough
+     * @return the state to fill in
+     */
+    private MoveState pushState()
+    {
+        if (ply==states.length)
+        {
+            MoveState[] bigger = new MoveState[Math.max(16,states.length*2)];
+            System.arraycopy(states,0,bigger,0,states.length);
+            for (int i = states.length; i < bigger.length; i++)
+                bigger[i] = new MoveState();
+            states = bigger;
+        }
+        return states[ply++];
+    }
+
+    /**
+     * gets all the locations on the board
+     * @return the locations on the board
+     */
+    public ArrayList<Location> getLocations()
+    {
+        ArrayList<Location> locs = new ArrayList<>();
+        for (int row = 0; row < Chess.ROWS; row++)
+        {
+            for (int col = 0; col < Chess.COLUMNS; col++)
+            {
+                locs.add(new Location(row,col));
+            }
+        }
+        return locs;
+    }
+
+    /**
+     * Gets the adjacent locations to a given location
+     * @param loc the center of those adjacent locs
+     * @return locations the locations adjacent to loc
+     */
+    public ArrayList<Location> getAdjacentLocations(Location loc)
+    {
+        return toLocations(Bitboards.king(Move.square(loc)));
+    }
+
+    /**
+     * Gets the empty adjacent locations to loc
+     * @param loc the one around which all this is centered
+     * @return locations the locations
+     */
+    public ArrayList<Location> getEmptyAdjacentLocations(Location loc)
+    {
+        return toLocations(Bitboards.king(Move.square(loc))&~occupied);
+    }
+
+    /**
+     * Makes a list of the locations of the squares on a bitboard
+     * @param squares the bitboard
+     * @return the locations, in square order
+     */
+    private static ArrayList<Location> toLocations(long squares)
+    {
+        ArrayList<Location> locs = new ArrayList<>(Long.bitCount(squares));
+        for (; squares!=0; squares &= squares-1)
+            locs.add(Move.location(Long.numberOfTrailingZeros(squares)));
+        return locs;
+    }
+
+    /**
+     * Gets all the pieces in the position
+     * @return pieces the pieces
+     */
+    public ArrayList<Piece> getPieces()
+    {
+        ArrayList<Piece> list = new ArrayList<>();
+        for (Piece[] row: pieces)
+            for (Piece p: row)
+                if (p!=null)
+                    list.add(p);
+        return list;
+    }
+
+    /**
+     * This gets all the pieces of the specified color in the position
+     * @param color the color of the pieces
+     * @return pieces the pieces specified
+     */
+    public ArrayList<Piece> getPieces(PieceColor color)
+    {
+        ArrayList<Piece> list = new ArrayList<>();
+        for (Piece[] row: pieces)
+            for (Piece p: row)
+                if (p!=null&&p.getColor()==color)
+                    list.add(p);
+        return list;
+    }
+
+    /**
+     * Finds the possible locations a given piece can move to. This is for
+     * the board to show, and just reads them off generated moves.
+     * @param p the piece in question
+     * @return locs all the locations the piece can go to
+     */
+    public ArrayList<Location> getMoveLocations(Piece p)
+    {
+        if (p==null)
+            return null;
+        Location loc = getLocation(p);
+        if (loc==null)
+            return new ArrayList<>();
+        if (p.getColor()==colorGoing())
+            return getStatus().getMoveLocations(loc);
+        int count = generate(scratch,0,p.getColor(),1L<<Move.square(loc));
+        ArrayList<Location> locs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            Type promotion = Move.promotion(scratch[i]);
+            if (promotion==null||promotion==Type.QUEEN) //one square for all four promotions
+                locs.add(Move.location(Move.to(scratch[i])));
+        }
+        return locs;
+    }
+
+    /**
+     * Determines whether a color has any legal move, whether or not it is
+     * that color's turn
+     * @param color the color
+     * @return whether it can move
+     */
+    public boolean hasMoves(PieceColor color)
+    {
+        return generate(scratch,0,color,-1L)>0;
+    }
+
+    /**
+     * Writes every legal move for the color going into an array, packed into
+     * ints. The squares each piece can go to come straight from the bitboards
+     * and nothing gets allocated, so this is what the engine uses.
+     * @param moves where the moves go, at least Move.MAX_MOVES long
+     * @param start the index of the first move
+     * @return the number of moves written
+     */
+    public int generateMoves(int[] moves, int start)
+    {
+        return generate(moves,start,colorGoing(),-1L);
+    }
+
+    /**
+     * Writes the legal moves of the color going that take one type of piece
+     * to one square. Only the pieces that could get there are tried, which is
+     * far less work than generating every move, so reading notation uses it.
+     * @param moves where the moves go, at least Move.MAX_MOVES long
+     * @param start the index of the first move
+     * @param type the type of piece moving
+     * @param to the square it goes to, row*8+col
+     * @return the number of moves written
+     */
+    public int generateMoves(int[] moves, int start, Type type, int to)
+    {
+        PieceColor color = colorGoing();
+        long from = bitboards[color.ordinal()*TYPES+type.ordinal()];
+        if (type==Type.PAWN) //the pawns that could take on the square or are on its file
+            from &= Bitboards.pawn(color.opposite(),to)|0x0101010101010101L<<(to%Chess.COLUMNS);
+        else if (type!=Type.KING) //the king has to be tried for castling anyway
+            from &= Bitboards.attacks(type,color,to,occupied);
+        int end = start+generate(moves,start,color,from);
+        int count = start;
+        for (int i = start; i < end; i++)
+            if (Move.to(moves[i])==to)
+                moves[count++] = moves[i];
+        return count-start;
+    }
+
+    /**
+     * Writes the legal captures and promotions of the color going, the moves
+     * that change the material. Together with generateQuiets this gives every
+     * legal move once, so the search can make the captures first and never
+     * generate the rest if one of them is good enough.
+     * @param moves where the moves go, at least Move.MAX_MOVES long
+     * @param start the index of the first move
+     * @return the number of moves written
+     */
+    public int generateCaptures(int[] moves, int start)
+    {
+        return generate(moves,start,colorGoing(),-1L,CAPTURES);
+    }
+
+    /**
+     * Writes the legal moves of the color going that don't take anything or
+     * promote, castling included
+     * @param moves where the moves go, at least Move.MAX_MOVES long
+     * @param start the index of the first move
+     * @return the number of moves written
+     */
+    public int generateQuiets(int[] moves, int start)
+    {
+        return generate(moves,start,colorGoing(),-1L,QUIETS);
+    }
+
+    /**
+     * Determines whether a move is legal for the color going. Only the moves
+     * of the piece on the move's square are generated to find out, so it is
+     * cheap enough for checking a move from the table or from another
+     * position before searching it.
+     * @param move the move, packed like Move does
+     * @return whether it is one of the legal moves
+     */
+    public boolean isLegal(int move)
+    {
+        if (move==Move.NONE)
+            return false;
+        int count = generate(scratch,0,colorGoing(),1L<<Move.from(move),ALL_MOVES);
+        for (int i = 0; i < count; i++)
+            if (scratch[i]==move)
+                return true;
+        return false;
+    }
+
+    /**
+     * Writes the legal moves of some pieces of a color into an array
+     * @param moves where the moves go, at least Move.MAX_MOVES long
+     * @param start the index of the first move
+     * @param color the color moving, which doesn't have to be the color going
+     * @param from a bitboard of the squares whose pieces to move
+     * @return the number of moves written
+     */
+    private int generate(int[] moves, int start, PieceColor color, long from)
+    {
+        return generate(moves,start,color,from,ALL_MOVES);
+    }
+
+    /**
+     * Writes some kinds of legal moves of some pieces of a color into an array
+     * @param moves where the moves go, at least Move.MAX_MOVES long
+     * @param start the index of the first move
+     * @param color the color moving, which doesn't have to be the color going
+     * @param from a bitboard of the squares whose pieces to move
+     * @param kinds CAPTURES, QUIETS or ALL_MOVES
+     * @return the number of moves written
+     */
+    private int generate(int[] moves, int start, PieceColor color, long from, int kinds)
+    {
+        int base = color.ordinal()*TYPES;
+        long targets = 0;
+        if ((kinds&CAPTURES)!=0)
+            targets |= colorBoards[color.opposite().ordinal()];
+        if ((kinds&QUIETS)!=0)
+            targets |= ~occupied;
+        int count = start;
+        for (long b = bitboards[base+Type.PAWN.ordinal()]&from; b!=0; b &= b-1)
+        {
+            int square = Long.numberOfTrailingZeros(b);
+            int row = square/Chess.COLUMNS;
+            int col = square%Chess.COLUMNS;
+            count = addPawnMoves(moves,count,pieces[row][col],row,col,kinds);
+        }
+        for (long b = bitboards[base+Type.KNIGHT.ordinal()]&from; b!=0; b &= b-1)
+        {
+            int square = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves,count,square,Bitboards.knight(square)&targets,KNIGHT_MOVE);
+        }
+        for (long b = bitboards[base+Type.BISHOP.ordinal()]&from; b!=0; b &= b-1)
+        {
+            int square = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves,count,square,Bitboards.bishop(square,occupied)&targets,BISHOP_MOVE);
+        }
+        for (long b = bitboards[base+Type.ROOK.ordinal()]&from; b!=0; b &= b-1)
+        {
+            int square = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves,count,square,Bitboards.rook(square,occupied)&targets,ROOK_MOVE);
+        }
+        for (long b = bitboards[base+Type.QUEEN.ordinal()]&from; b!=0; b &= b-1)
+        {
+            int square = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves,count,square,Bitboards.queen(square,occupied)&targets,QUEEN_MOVE);
+        }
+        for (long b = bitboards[base+Type.KING.ordinal()]&from; b!=0; b &= b-1)
+        {
+            int square = Long.numberOfTrailingZeros(b);
+            count = addMoves(moves,count,square,Bitboards.king(square)&targets,KING_MOVE);
+            if ((kinds&QUIETS)!=0)
+                count = addCastling(moves,count,pieces[square/Chess.COLUMNS][square%Chess.COLUMNS],
+                    square/Chess.COLUMNS,square%Chess.COLUMNS);
+        }
+        return count - start;
+    }
+
+    /**
+     * Adds the moves of a piece to each square of a bitboard
+     * @param moves where the moves go
+     * @param count the index of the next move
+     * @param from the square of the piece
+     * @param targets the squares it can go to
+     * @param moveType the type of the moves
+     * @return the index after the last move
+     */
+    private int addMoves(int[] moves, int count, int from, long targets, int moveType)
+    {
+        int row = from/Chess.COLUMNS;
+        int col = from%Chess.COLUMNS;
+        Piece p = pieces[row][col];
+        for (; targets!=0; targets &= targets-1)
+        {
+            int to = Long.numberOfTrailingZeros(targets);
+            count = addMove(moves,count,p,row,col,to/Chess.COLUMNS,to%Chess.COLUMNS,moveType);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the moves of a pawn, the same ones canMoveTo allows. Promotions
+     * count as captures even when nothing is taken.
+     * @param moves where the moves go
+     * @param count the index of the next move
+     * @param p the pawn
+     * @param row the row of the pawn
+     * @param col the col of the pawn
+     * @param kinds CAPTURES, QUIETS or ALL_MOVES
+     * @return the index after the last move
+     */
+    private int addPawnMoves(int[] moves, int count, Piece p, int row, int col, int kinds)
+    {
+        int forward = p.white() ? -1 : 1;
+        int next = row+forward;
+        if (next<0||next>=Chess.ROWS)
+            return count;
+        boolean promoting = next==0||next==Chess.ROWS-1;
+        if (pieces[next][col]==null&&(kinds&(promoting ? CAPTURES : QUIETS))!=0)
+        {
+            count = addMove(moves,count,p,row,col,next,col,PAWN_MOVE);
+            int startRow = p.white() ? Chess.ROWS-2 : 1;
+            if (row==startRow&&!p.hasMoved()&&pieces[next+forward][col]==null)
+                count = addMove(moves,count,p,row,col,next+forward,col,PAWN_FIRST_MOVE);
+        }
+        if ((kinds&CAPTURES)==0)
+            return count;
+        for (int c = col-1; c <= col+1; c+=2)
+        {
+            if (c<0||c>=Chess.COLUMNS)
+                continue;
+            Piece other = pieces[next][c];
+            if (other!=null)
+            {
+                if (other.getColor()!=p.getColor())
+                    count = addMove(moves,count,p,row,col,next,c,PAWN_CAPTURE);
+            }
+            else
+            {
+                Piece passed = pieces[row][c];
+                if (passed!=null&&passed.hasJustMoved()&&passed.getType()==Type.PAWN
+                    &&passed.getColor()!=p.getColor())
+                    count = addMove(moves,count,p,row,col,next,c,EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the castling moves of a king, the same ones canMoveTo allows
+     * @param moves where the moves go
+     * @param count the index of the next move
+     * @param king the king
+     * @param row the row of the king
+     * @param col the col of the king
+     * @return the index after the last move
+     */
+    private int addCastling(int[] moves, int count, Piece king, int row, int col)
+    {
+        if (king.hasMoved())
+            return count;
+        PieceColor enemy = king.getColor().opposite();
+        if (col+3<Chess.COLUMNS&&castlingRook(king,row,col+3)
+            &&pieces[row][col+1]==null&&pieces[row][col+2]==null
+            &&!isAttacked(row,col,enemy)&&!isAttacked(row,col+1,enemy)&&!isAttacked(row,col+2,enemy))
+            count = addMove(moves,count,king,row,col,row,col+2,KINGSIDE_CASTLING);
+        if (col-4>=0&&castlingRook(king,row,col-4)
+            &&pieces[row][col-1]==null&&pieces[row][col-2]==null&&pieces[row][col-3]==null
+            &&!isAttacked(row,col,enemy)&&!isAttacked(row,col-1,enemy)&&!isAttacked(row,col-2,enemy))
+            count = addMove(moves,count,king,row,col,row,col-2,QUEENSIDE_CASTLING);
+        return count;
+    }
+
+    /**
+     * Determines whether there is a rook a king could castle with on a square
+     * @param king the king
+     * @param row the row of the square
+     * @param col the col of the square
+     * @return whether there is an unmoved rook of the king's color
+     */
+    private boolean castlingRook(Piece king, int row, int col)
+    {
+        Piece rook = pieces[row][col];
+        return rook!=null&&rook.getType()==Type.ROOK&&rook.sameColor(king)&&!rook.hasMoved();
+    }
+
+    /**
+     * Adds a move if it doesn't leave the king in check, which it finds out
+     * by making the move and taking it back. A pawn getting to the end adds
+     * one move for every type it could become.
+     * @param moves where the moves go
+     * @param count the index of the next move
+     * @param p the piece moving
+     * @param row the row of the piece
+     * @param col the col of the piece
+     * @param toRow the row of the destination
+     * @param toCol the col of the destination
+     * @param moveType the type of the move
+     * @return the index after the last move
+     */
+    private int addMove(int[] moves, int count, Piece p, int row, int col, int toRow, int toCol, int moveType)
+    {
+        makeMove(row,col,toRow,toCol,moveType,null);
+        boolean legal = !inCheck(p.getColor());
+        unmakeMove();
+        if (!legal)
+            return count;
+        int from = row*Chess.COLUMNS+col;
+        int to = toRow*Chess.COLUMNS+toCol;
+        if (p.getType()==Type.PAWN&&(toRow==0||toRow==Chess.ROWS-1))
+        {
+            moves[count++] = Move.create(from,to,moveType,Type.QUEEN);
+            moves[count++] = Move.create(from,to,moveType,Type.ROOK);
+            moves[count++] = Move.create(from,to,moveType,Type.BISHOP);
+            moves[count++] = Move.create(from,to,moveType,Type.KNIGHT);
+        }
+        else
+            moves[count++] = Move.create(from,to,moveType,null);
+        return count;
+    }
+
+    /**
+     * Determines if a piece can move to a destination regardless of whether
+     * that results in a check or not
+     * @param p the piece moving
+     * @param dest the location its going to
+     * @return whether or not p can go to dest
+     */
+    public int canMoveTo(Piece p, Location dest)
+    {
+        if (p==null||dest==null||!dest.isValid())
+            return ILLEGAL_MOVE;
+        Location loc = getLocation(p);
+        if (dest.equals(loc))
+            return ILLEGAL_MOVE;
+        int thisCol = loc.getCol();
+        int thisRow = loc.getRow();
+        int otherCol = dest.getCol();
+        int otherRow = dest.getRow();
+        int rowDiff = Math.abs(thisRow-otherRow);
+        int colDiff = Math.abs(thisCol-otherCol);
+        Piece other = getPiece(dest);
+        if (other!=null&&other.sameColor(p))
+            return ILLEGAL_MOVE;
+        switch (p.getType())
+        {
+            case KING:
+            if (rowDiff==0&&colDiff==2) //castling
+            {
+                if (p.hasMoved())
+                    return ILLEGAL_MOVE;
+                Direction dir = thisCol > otherCol ? Direction.WEST : Direction.EAST;
+                int rookCol = dir==Direction.WEST ? thisCol-4 : thisCol+3;
+                if (rookCol<0||rookCol>=Chess.COLUMNS)
+                    return ILLEGAL_MOVE;
+                Piece rook = pieces[thisRow][rookCol];
+                if (rook==null||rook.getType()!=Type.ROOK||!p.sameColor(rook)||rook.hasMoved())
+                    return ILLEGAL_MOVE;
+                int square = thisRow*Chess.COLUMNS+thisCol;
+                if ((Bitboards.between(square,square-thisCol+rookCol)&occupied)!=0)
+                    return ILLEGAL_MOVE;
+                //only the squares the king goes over can't be attacked
+                PieceColor enemy = p.getColor().opposite();
+                for (int i = 0; i <= 2; i++)
+                    if (isAttacked(thisRow,thisCol+i*dir.getColStep(),enemy))
+                        return ILLEGAL_MOVE;
+                if (dir==Direction.WEST)
+                    return QUEENSIDE_CASTLING;
+                else return KINGSIDE_CASTLING;
+            }
+            else //normal king move
+                if (canAttack(p,loc,dest))
+                    return KING_MOVE;
+                else return ILLEGAL_MOVE;
+
+            case PAWN:
+            if (rowDiff>2||rowDiff<1||colDiff>1||(rowDiff==2&&colDiff>0)
+            ||(p.white()&&otherRow>thisRow)||(!p.white()&&otherRow<thisRow))
+                return ILLEGAL_MOVE;
+            else if (rowDiff==2) //first move
+            {
+                if (p.hasMoved())
+                    return ILLEGAL_MOVE;
+                if (pieces[(thisRow+otherRow)/2][thisCol]==null&&other==null&&((p.white()&&thisRow==6)||(!p.white()&&thisRow==1)))
+                    return PAWN_FIRST_MOVE;
+                else return ILLEGAL_MOVE;
+            }
+            else if (colDiff==1 && other!=null) //taking
+            {
+                if (p.sameColor(other))
+                    return ILLEGAL_MOVE;
+                else return PAWN_CAPTURE;
+            }
+            else if (colDiff==1 && other==null) //en passant
+            {
+                Piece otherPiece = pieces[thisRow][otherCol];
+                if (otherPiece!=null&&otherPiece.hasJustMoved()
+                    &&otherPiece.getType()==Type.PAWN&&!otherPiece.sameColor(p))
+                    return EN_PASSANT;
+                else return ILLEGAL_MOVE;
+            }
+            else if (rowDiff==1) //normal move
+            {
+                if (other==null)
+                    return PAWN_MOVE;
+                else return ILLEGAL_MOVE;
+            }
+            break;
+
+            case ROOK:case QUEEN: case BISHOP:case KNIGHT:
+            if (!canAttack(p,loc,dest))
+                return ILLEGAL_MOVE;
+            else
+            {
+                switch (p.getType())
+                {
+                    case ROOK:return ROOK_MOVE;
+                    case QUEEN:return QUEEN_MOVE;
+                    case BISHOP:return BISHOP_MOVE;
+                    case KNIGHT:return KNIGHT_MOVE;
+                }
+            }
+        }
+        return ILLEGAL_MOVE; //will never happen
+    }
+
+    /**
+     * checks if p can threaten to attack a certain square, regardless of whether
+     * it can actually move there at the present.
+     * @param p the piece moving
+     * @param from the location of p
+     * @param loc the location moving to
+     * @return whether or not p threatens loc
+     */
+    private boolean canAttack(Piece p, Location from, Location loc)
+    {
+        long attacks = Bitboards.attacks(p.getType(),p.getColor(),Move.square(from),occupied);
+        return (attacks&(1L<<Move.square(loc)))!=0;
+    }
+
+    /**
+     * Checks if any piece of a color attacks a square. Instead of asking every
+     * piece of that color, this looks out from the square itself: a knight
+     * there would attack the knights that attack it, a rook there the rooks
+     * and queens, and so on, so it is a handful of bitboard lookups.
+     * @param row the row of the square
+     * @param col the col of the square
+     * @param by the color doing the attacking
+     * @return whether or not the square is attacked
+     */
+    public boolean isAttacked(int row, int col, PieceColor by)
+    {
+        int square = row*Chess.COLUMNS+col;
+        int base = by.ordinal()*TYPES;
+        //the pawns that attack a square are the ones a pawn of the other color there would attack
+        if ((Bitboards.pawn(by.opposite(),square)&bitboards[base+Type.PAWN.ordinal()])!=0
+            ||(Bitboards.knight(square)&bitboards[base+Type.KNIGHT.ordinal()])!=0
+            ||(Bitboards.king(square)&bitboards[base+Type.KING.ordinal()])!=0)
+            return true;
+        long queens = bitboards[base+Type.QUEEN.ordinal()];
+        return (Bitboards.bishop(square,occupied)&(bitboards[base+Type.BISHOP.ordinal()]|queens))!=0
+            ||(Bitboards.rook(square,occupied)&(bitboards[base+Type.ROOK.ordinal()]|queens))!=0;
+    }
+
+    /**
+     * Works out what a capture wins once every piece that can take on its
+     * square has taken, cheapest first, each side stopping whenever taking
+     * again would lose more. This is static exchange evaluation: it only
+     * looks at which pieces attack the square, including the ones behind
+     * others that get uncovered, without making any moves, so it is cheap
+     * enough for the search to use on every capture. Pins are ignored.
+     * @param move the capture, packed like Move does
+     * @return what the color making it wins, by Evaluation.exchangeValue,
+     * less than 0 if it loses material
+     */
+    public int see(int move)
+    {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece mover = pieces[from/Chess.COLUMNS][from%Chess.COLUMNS];
+        Piece victim = pieces[to/Chess.COLUMNS][to%Chess.COLUMNS];
+        long occ = occupied^(1L<<from);
+        int value = Evaluation.exchangeValue(mover.getType()); //of the piece that would be taken next
+        gains[0] = victim==null ? 0 : Evaluation.exchangeValue(victim.getType());
+        if (Move.type(move)==EN_PASSANT)
+        {
+            gains[0] = Evaluation.exchangeValue(Type.PAWN);
+            occ ^= 1L<<(from-from%Chess.COLUMNS+to%Chess.COLUMNS);
+        }
+        Type promotion = Move.promotion(move);
+        if (promotion!=null)
+        {
+            gains[0]+=Evaluation.exchangeValue(promotion)-Evaluation.exchangeValue(Type.PAWN);
+            value = Evaluation.exchangeValue(promotion);
+        }
+        PieceColor side = mover.getColor().opposite();
+        int d = 0;
+        while (true)
+        {
+            d++;
+            gains[d] = value-gains[d-1]; //if the piece that just took gets taken
+            long attackers = attackersTo(to,occ)&occ;
+            long mine = attackers&colorBoards[side.ordinal()];
+            if (mine==0)
+                break;
+            Type cheapest = null;
+            long bit = 0;
+            int base = side.ordinal()*TYPES;
+            for (Type type: CHEAPEST_FIRST)
+            {
+                long b = mine&bitboards[base+type.ordinal()];
+                if (b!=0)
+                {
+                    cheapest = type;
+                    bit = b&-b;
+                    break;
+                }
+            }
+            if (cheapest==Type.KING&&(attackers&~mine)!=0) //the king can't take into check
+                break;
+            value = Evaluation.exchangeValue(cheapest);
+            occ ^= bit;
+            side = side.opposite();
+        }
+        while (--d>0) //going back, each side only takes if it's better than stopping
+            gains[d-1] = -Math.max(-gains[d-1],gains[d]);
+        return gains[0];
+    }
+
+    /**
+     * Gets the pieces of both colors that attack a square
+     * @param square the square, row*8+col
+     * @param occ the squares with pieces on them, which can be fewer than
+     * there really are so the pieces behind come through
+     * @return a bitboard of the attackers, which can include pieces not in occ
+     */
+    private long attackersTo(int square, long occ)
+    {
+        long attackers = 0;
+        for (PieceColor color: COLORS)
+        {
+            int base = color.ordinal()*TYPES;
+            long queens = bitboards[base+Type.QUEEN.ordinal()];
+            attackers |= (Bitboards.pawn(color.opposite(),square)&bitboards[base+Type.PAWN.ordinal()])
+                |(Bitboards.knight(square)&bitboards[base+Type.KNIGHT.ordinal()])
+                |(Bitboards.king(square)&bitboards[base+Type.KING.ordinal()])
+                |(Bitboards.bishop(square,occ)&(bitboards[base+Type.BISHOP.ordinal()]|queens))
+                |(Bitboards.rook(square,occ)&(bitboards[base+Type.ROOK.ordinal()]|queens));
+        }
+        return attackers;
+    }
+
+    /**
+     * Gets where the king of a color is without looking for it, since the
+     * position keeps track of the kings as they move
+     * @param color the color of the king
+     * @return the location of the king or null if there is none
+     */
+    public Location getKingLocation(PieceColor color)
+    {
+        int row = kingRows[color.ordinal()];
+        if (row<0)
+            return null;
+        return new Location(row,kingCols[color.ordinal()]);
+    }
+
+    /**
+     * Determines whether a king of a color is in check
+     * @param color the king's color
+     * @return whether or not the king is in check
+     */
+    public boolean inCheck(PieceColor color)
+    {
+        int row = kingRows[color.ordinal()];
+        if (row<0)
+            return false;
+        return isAttacked(row,kingCols[color.ordinal()],color.opposite());
+    }
+
+    public boolean check()
+    {
+        return inCheck(PieceColor.WHITE)||inCheck(PieceColor.BLACK);
+    }
+
+    public PieceColor inCheck()
+    {
+        PieceColor white = PieceColor.WHITE;
+        PieceColor black = PieceColor.BLACK;
+        if (inCheck(white))
+            return white;
+        else if (inCheck(black))
+            return black;
+        else return null;
+    }
+
+    /**
+     * This checks if a specific color is checkmated
+     * @param color the color being mated
+     * @return whether or not it is in mate
+     */
+    public boolean checkmate(PieceColor color)
+    {
+        if (color==colorGoing())
+            return getStatus().isCheckmate();
+        return kingRows[color.ordinal()]>=0&&inCheck(color)&&!hasMoves(color);
+    }
+
+    /**
+     * This figures out whether or not there is any sort of checkmate on the board
+     * @return whether or not white or black is checkmated
+     */
+    public boolean checkmate()
+    {
+        return checkmate(PieceColor.BLACK)||checkmate(PieceColor.WHITE);
+    }
+
+    /**
+     * This determines whether or not the game is over based on the position
+     * @return whether or not it is a gameover
+     */
+    public boolean gameOver()
+    {
+        return getStatus().isOver()||checkmate(colorGoing().opposite());
+    }
+
+    /**
+     * Gets the legal moves, check and whether the game is over, working them
+     * out only the first time they are asked for after the position changes
+     * @return the status of the position
+     */
+    public GameStatus getStatus()
+    {
+        if (status==null)
+            status = new GameStatus(this);
+        return status;
+    }
+
+    /**
+     * This gets the type of draw currently happening
+     * @return the type of draw occurring or NOT_DRAW if there isn't one.
+     */
+    public int draw()
+    {
+        return getStatus().getDraw();
+    }
+
+    /**
+     * This turns the position into the position one move ago. The moves of
+     * the game are still on the stack makeMove keeps, so this just takes the
+     * last one back, however long the game is. Only a copy, which can't see
+     * the moves made before it was copied, has to read the position back out
+     * of the history.
+     */
+    public void undoMove()
+    {
+        if (historyCount<=1)
+            return;
+        historyCount--;
+        if (ply>0)
+        {
+            MoveState state = states[ply-1];
+            Type promotion = state.moved.getType()!=state.type ? state.moved.getType() : null;
+            int move = Move.create(state.fromRow*Chess.COLUMNS+state.fromCol,
+                    state.toRow*Chess.COLUMNS+state.toCol,state.moveType,promotion);
+            unmakeMove();
+            if (redoCount==redo.length)
+                redo = Arrays.copyOf(redo,redo.length*2);
+            redo[redoCount++] = move;
+            return;
+        }
+        history.position((historyCount-1)*ENCODED_BYTES);
+        load(history);
+        redoCount = 0;
+        hashCount--;
+        rehash();
+    }
+
+    /**
+     * Takes back some number of moves
+     * @param n how many moves to take back
+     */
+    public void undoMoves(int n)
+    {
+        for (int i = 0; i < n&&canUndo(); i++)
+            undoMove();
+    }
+
+    /**
+     * Determines whether there is a move to take back
+     * @return whether undoMove would do anything
+     */
+    public boolean canUndo()
+    {
+        return historyCount>1;
+    }
+
+    /**
+     * Gets the move redoMove would make without making it
+     * @return the move, or Move.NONE if nothing has been undone
+     */
+    public int getRedoMove()
+    {
+        return redoCount==0 ? Move.NONE : redo[redoCount-1];
+    }
+
+    /**
+     * Makes the last move that was taken back again
+     * @return the move made, or Move.NONE if nothing has been undone
+     */
+    public int redoMove()
+    {
+        if (redoCount==0)
+            return Move.NONE;
+        int move = redo[--redoCount];
+        makeMove(move);
+        remember();
+        return move;
+    }
+
+    /**
+     * Makes some number of moves that were taken back again
+     * @param n how many moves to redo
+     */
+    public void redoMoves(int n)
+    {
+        for (int i = 0; i < n&&redoCount>0; i++)
+            redoMove();
+    }
+
+    /**
+     * Writes the position into a buffer from its position on, taking
+     * ENCODED_BYTES bytes. It holds everything the rules care about, and
+     * decode makes the same position back out of it.
+     * @param buffer the buffer to write to
+     */
+    public void encode(ByteBuffer buffer)
+    {
+        for (int square = 0; square < Chess.ROWS*Chess.COLUMNS; square+=2)
+        {
+            int low = pieceCode(pieces[square/Chess.COLUMNS][square%Chess.COLUMNS]);
+            int high = pieceCode(pieces[square/Chess.COLUMNS][square%Chess.COLUMNS+1]);
+            buffer.put((byte)(low|high<<4));
+        }
+        int going = colorGoing()==PieceColor.WHITE ? 0 : 1;
+        buffer.put((byte)(going|castlingRights()<<1));
+        int file = 0;
+        if (justMoved!=null)
+        {
+            Location loc = getLocation(justMoved);
+            if (loc!=null)
+                file = loc.getCol()+1;
+        }
+        buffer.put((byte)file);
+        buffer.putShort((short)fiftyMove);
+        buffer.putInt(turn);
+    }
+
+    /**
+     * Gets the number of a piece in encode: 0 for none, then the types in
+     * order for white and again for black
+     * @param p the piece or null
+     * @return the number, 0 to 12
+     */
+    private static int pieceCode(Piece p)
+    {
+        if (p==null)
+            return 0;
+        return 1+p.getType().ordinal()+(p.white() ? 0 : TYPES);
+    }
+
+    /**
+     * Sets up the pieces, turn and fifty move count from a position written
+     * by encode. The hasMoved flags are worked out from the castling rights
+     * and where the pawns are, and the pawn that can be taken en passant gets
+     * hasJustMoved. The key isn't worked out, so rehash has to be called.
+     * @param buffer the buffer to read from its position on
+     */
+    private void load(ByteBuffer buffer)
+    {
+        justMoved = null;
+        for (int square = 0; square < Chess.ROWS*Chess.COLUMNS; square+=2)
+        {
+            int b = buffer.get()&0xFF;
+            placeCode(b&15,square);
+            placeCode(b>>>4,square+1);
+        }
+        int flags = buffer.get();
+        int rights = (flags>>>1)&15;
+        int file = buffer.get()-1;
+        fiftyMove = buffer.getShort()&0xFFFF;
+        turn = buffer.getInt();
+        if ((turn&1)!=(flags&1))
+            throw new IllegalArgumentException("The color going doesn't match the turn");
+        if ((rights&(Zobrist.WHITE_KINGSIDE|Zobrist.WHITE_QUEENSIDE))!=0)
+            setUnmoved(Type.KING,7,4);
+        if ((rights&Zobrist.WHITE_KINGSIDE)!=0)
+            setUnmoved(Type.ROOK,7,7);
+        if ((rights&Zobrist.WHITE_QUEENSIDE)!=0)
+            setUnmoved(Type.ROOK,7,0);
+        if ((rights&(Zobrist.BLACK_KINGSIDE|Zobrist.BLACK_QUEENSIDE))!=0)
+            setUnmoved(Type.KING,0,4);
+        if ((rights&Zobrist.BLACK_KINGSIDE)!=0)
+            setUnmoved(Type.ROOK,0,7);
+        if ((rights&Zobrist.BLACK_QUEENSIDE)!=0)
+            setUnmoved(Type.ROOK,0,0);
+        if (file>=0&&file<Chess.COLUMNS)
+        {
+            //the pawn that just moved two belongs to the color not going
+            Piece p = pieces[colorGoing()==PieceColor.WHITE ? 3 : 4][file];
+            if (p!=null&&p.getType()==Type.PAWN&&p.getColor()!=colorGoing())
+            {
+                p.setHasJustMoved(true);
+                justMoved = p;
+            }
+        }
+    }
+
+    /**
+     * Puts the piece with a number from pieceCode on a square. Pawns off
+     * their starting row and everything else count as having moved until
+     * the castling rights say otherwise.
+     * @param code the number of the piece
+     * @param square the square, row*8+col
+     */
+    private void placeCode(int code, int square)
+    {
+        int row = square/Chess.COLUMNS;
+        int col = square%Chess.COLUMNS;
+        if (code==0)
+        {
+            pieces[row][col] = null;
+            return;
+        }
+        if (code>2*TYPES)
+            throw new IllegalArgumentException("There is no piece number "+code);
+        PieceColor color = code<=TYPES ? PieceColor.WHITE : PieceColor.BLACK;
+        Type type = TYPE_VALUES[(code-1)%TYPES];
+        Piece p = new Piece(type,color,new Location(row,col));
+        if (type==Type.PAWN)
+            p.setHasMoved(row!=(color==PieceColor.WHITE ? 6 : 1));
+        else
+            p.setHasMoved(true);
+        pieces[row][col] = p;
+    }
+
+    /**
+     * Marks the piece on a square as never having moved, if it is the type
+     * and color that starts there
+     * @param type the type of the piece
+     * @param row the row of the square
+     * @param col the col of the square
+     */
+    private void setUnmoved(Type type, int row, int col)
+    {
+        Piece p = pieces[row][col];
+        if (p!=null&&p.getType()==type&&p.white()==(row==Chess.ROWS-1))
+            p.setHasMoved(false);
+    }
+
+    /**
+     * Writes the position over the newest entry of the history, for when it
+     * is changed some way other than by a move, so undoing back to it gives
+     * the position as it was set up. The moves on the stack can't be taken
+     * back over the change any more, so they are dropped and undoing reads
+     * the history back instead, and so are the moves that could be redone.
+     */
+    private void rememberAgain()
+    {
+        ply = 0;
+        redoCount = 0;
+        historyCount--;
+        remember();
+    }
+
+    /**
+     * Adds the position to the end of the game's history, making room if
+     * needed
+     */
+    private void remember()
+    {
+        if ((historyCount+1)*ENCODED_BYTES>history.capacity())
+        {
+            ByteBuffer bigger = ByteBuffer.allocate(history.capacity()*2);
+            bigger.put(history.array(),0,historyCount*ENCODED_BYTES);
+            history = bigger;
+        }
+        history.position(historyCount*ENCODED_BYTES);
+        encode(history);
+        historyCount++;
+    }
+
+    /**
+     * This gets the string representation of the position with all the pieces
+     * on it, which the string constructor reads back. The turn and the fifty
+     * move count come first, each ended by a comma, so they can get as big as
+     * they like. The game's history is kept with encode instead.
+     * @return the string representation of the position
+     */
+    @Override
+    public final String toString()
+    {
+        String str = turn+FIELD_END+fiftyMove+FIELD_END;
+        for (int i = 0; i < Chess.ROWS; i++)
+            for (int j = 0; j < Chess.COLUMNS; j++)
+                if (pieces[i][j]!=null)
+                    str+=""+pieces[i][j]+new Location(i,j);
+        return str;
+    }
+
+    /**
+     * Splits a string made by toString into the turn, the fifty move count
+     * and the pieces. Strings from before the fields were delimited have two
+     * digits for each instead.
+     * @param position the string representation of a position
+     * @return the three parts
+     */
+    private static String[] splitPos(String position)
+    {
+        int turnEnd = position.indexOf(FIELD_END);
+        if (turnEnd<0)
+        {
+            if (position.length()<4)
+                throw new IllegalArgumentException("Not a position: "+position);
+            return new String[] {position.substring(0,2),position.substring(2,4),position.substring(4)};
+        }
+        int fiftyMoveEnd = position.indexOf(FIELD_END,turnEnd+1);
+        if (fiftyMoveEnd<0)
+            throw new IllegalArgumentException("Not a position: "+position);
+        return new String[] {position.substring(0,turnEnd),position.substring(turnEnd+1,fiftyMoveEnd),position.substring(fiftyMoveEnd+1)};
+    }
+
+    private static int getTurnFromPos(String position)
+    {
+        return Integer.parseInt(splitPos(position)[0]);
+    }
+
+    private static int getFiftyMoveFromPos(String position)
+    {
+        return Integer.parseInt(splitPos(position)[1]);
+    }
+
+    private static String getPiecePositionFromPos(String position)
+    {
+        return splitPos(position)[2];
+    }
+}
+
+/**
+ * This little class holds everything makeMove changes, so unmakeMove can put
+ * it all back. Position keeps a stack of them and reuses them.
+ */
+final class MoveState
+{
+    Piece moved;
+    Type type;
+    boolean hadMoved;
+    Piece justMoved;
+    int fiftyMove;
+    int moveType;
+    int fromRow;
+    int fromCol;
+    int toRow;
+    int toCol;
+    Piece captured;
+    int capturedRow;
+    int capturedCol;
+    Piece rook;
+    int rookFromCol;
+    int rookToCol;
+    long hash;
+    int castling;
+    int passantFile;
+}
@@ -0,0 +1,227 @@
+package chess;
+
+/**
+ * Standard algebraic notation, the way moves are written in PGN files: Nf3,
+ * exd5, O-O, e8=Q+ and so on. Reading a move means finding the one legal
+ * move it describes, so both ways go through the move generator. Neither
+ * allocates anything but the string it writes, so whole databases of games
+ * can be read and written with them.
+ */
+public final class San
+{
+    private San()
+    {
+    }
+
+    /**
+     * Finds the legal move some notation describes. Check and mate signs and
+     * annotations like ! and ? at the end are ignored, and so is a missing =
+     * before a promotion.
+     * @param p the position the move is made in
+     * @param san the notation
+     * @param moves somewhere to generate the legal moves, at least
+     * Move.MAX_MOVES long
+     * @return the move, or Move.NONE if it is not legal or could be more
+     * than one move
+     */
+    public static int parse(Position p, CharSequence san, int[] moves)
+    {
+        int end = san.length();
+        while (end>0&&"+#!?".indexOf(san.charAt(end-1))>=0)
+            end--;
+        if (end<2)
+            return Move.NONE;
+        int castling = castling(san,end);
+        if (castling!=Position.ILLEGAL_MOVE)
+            return find(p,moves,castling);
+
+        int start = 0;
+        Type piece = Type.PAWN;
+        char first = san.charAt(0);
+        if (first=='K'||first=='Q'||first=='R'||first=='B'||first=='N')
+        {
+            piece = Type.typeOf(first);
+            start++;
+        }
+        Type promotion = null;
+        char last = san.charAt(end-1);
+        if (piece==Type.PAWN&&(last=='Q'||last=='R'||last=='B'||last=='N'))
+        {
+            promotion = Type.typeOf(last);
+            end--;
+            if (san.charAt(end-1)=='=')
+                end--;
+        }
+        if (end-start<2)
+            return Move.NONE;
+        int toCol = san.charAt(end-2)-'a';
+        int toRow = '8'-san.charAt(end-1);
+        if (toCol<0||toCol>=Chess.COLUMNS||toRow<0||toRow>=Chess.ROWS)
+            return Move.NONE;
+        int to = toRow*Chess.COLUMNS+toCol;
+
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end-2; i++)
+        {
+            char c = san.charAt(i);
+            if (c>='a'&&c<='h')
+                fromCol = c-'a';
+            else if (c>='1'&&c<='8')
+                fromRow = '8'-c;
+            else if (c!='x'&&c!=':'&&c!='-')
+                return Move.NONE;
+        }
+
+        int count = p.generateMoves(moves,0,piece,to);
+        int found = Move.NONE;
+        for (int i = 0; i < count; i++)
+        {
+            int move = moves[i];
+            int from = Move.from(move);
+            if (Move.promotion(move)!=promotion
+                ||(fromCol>=0&&from%Chess.COLUMNS!=fromCol)
+                ||(fromRow>=0&&from/Chess.COLUMNS!=fromRow))
+                continue;
+            int type = Move.type(move);
+            if (type==Position.KINGSIDE_CASTLING||type==Position.QUEENSIDE_CASTLING)
+                continue;
+            if (found!=Move.NONE)
+                return Move.NONE; //more than one move fits
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Reads castling, written with letter O's or zeroes
+     * @param san the notation
+     * @param end where the move ends, without the check signs
+     * @return the castling move type, or Position.ILLEGAL_MOVE if it isn't
+     * castling
+     */
+    private static int castling(CharSequence san, int end)
+    {
+        char o = san.charAt(0);
+        if (o!='O'&&o!='0')
+            return Position.ILLEGAL_MOVE;
+        if (end==3&&san.charAt(1)=='-'&&san.charAt(2)==o)
+            return Position.KINGSIDE_CASTLING;
+        if (end==5&&san.charAt(1)=='-'&&san.charAt(2)==o&&san.charAt(3)=='-'&&san.charAt(4)==o)
+            return Position.QUEENSIDE_CASTLING;
+        return Position.ILLEGAL_MOVE;
+    }
+
+    /**
+     * Finds the legal move of some move type, for castling
+     * @param p the position
+     * @param moves somewhere to generate the moves
+     * @param moveType the move type
+     * @return the move, or Move.NONE
+     */
+    private static int find(Position p, int[] moves, int moveType)
+    {
+        int count = p.generateMoves(moves,0);
+        for (int i = 0; i < count; i++)
+            if (Move.type(moves[i])==moveType)
+                return moves[i];
+        return Move.NONE;
+    }
+
+    /**
+     * Writes a legal move in notation, with just as much of the square it
+     * comes from as it takes to tell it apart from the other moves, and + or
+     * # if it checks or mates
+     * @param p the position the move is made in, which is put back the way
+     * it was
+     * @param move the move
+     * @param moves somewhere to generate the legal moves, at least
+     * Move.MAX_MOVES long
+     * @return the notation
+     */
+    public static String toString(Position p, int move, int[] moves)
+    {
+        StringBuilder s = new StringBuilder(8);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = Move.type(move);
+        if (type==Position.KINGSIDE_CASTLING)
+            s.append("O-O");
+        else if (type==Position.QUEENSIDE_CASTLING)
+            s.append("O-O-O");
+        else
+        {
+            Type piece = p.getPiece(from/Chess.COLUMNS,from%Chess.COLUMNS).getType();
+            boolean capture = type==Position.EN_PASSANT
+                    ||p.getPiece(to/Chess.COLUMNS,to%Chess.COLUMNS)!=null;
+            if (piece==Type.PAWN)
+            {
+                if (capture)
+                    s.append(file(from));
+            }
+            else
+            {
+                s.append(piece.toNotation());
+                disambiguate(p,move,piece,moves,s);
+            }
+            if (capture)
+                s.append('x');
+            s.append(file(to)).append(rank(to));
+            Type promotion = Move.promotion(move);
+            if (promotion!=null)
+                s.append('=').append(promotion.toNotation());
+        }
+        p.makeMove(move);
+        PieceColor going = p.colorGoing();
+        if (p.inCheck(going))
+            s.append(p.hasMoves(going) ? '+' : '#');
+        p.unmakeMove();
+        return s.toString();
+    }
+
+    /**
+     * Adds the file, rank or both of the square a piece comes from if
+     * another piece of the same type could go to the same square
+     * @param p the position
+     * @param move the move
+     * @param piece the type of piece moving
+     * @param moves somewhere to generate the moves
+     * @param s where the notation is being written
+     */
+    private static void disambiguate(Position p, int move, Type piece, int[] moves, StringBuilder s)
+    {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean others = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        int count = p.generateMoves(moves,0,piece,to);
+        for (int i = 0; i < count; i++)
+        {
+            int other = Move.from(moves[i]);
+            if (other==from)
+                continue;
+            others = true;
+            sameFile |= other%Chess.COLUMNS==from%Chess.COLUMNS;
+            sameRank |= other/Chess.COLUMNS==from/Chess.COLUMNS;
+        }
+        if (!others)
+            return;
+        if (!sameFile)
+            s.append(file(from));
+        else if (!sameRank)
+            s.append(rank(from));
+        else
+            s.append(file(from)).append(rank(from));
+    }
+
+    private static char file(int square)
+    {
+        return (char)('a'+square%Chess.COLUMNS);
+    }
+
+    private static char rank(int square)
+    {
+        return (char)('8'-square/Chess.COLUMNS);
+    }
+}
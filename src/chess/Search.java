@@ -0,0 +1,482 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * This is the computer opponent. It looks ahead with negamax alpha-beta,
+ * going one move deeper at a time until it runs out of time or nodes, and
+ * keeps the line of best play it found (the principal variation) so the
+ * next, deeper search tries that line first. Everywhere else the moves come
+ * from a MovePicker, table move first, then captures, then killers and the
+ * quiet moves by their history. At the end of each line it keeps going with
+ * just the captures, skipping the ones that lose material, until the
+ * position is quiet (see quiesce). What it finds out about each
+ * position goes in a transposition table, so a position reached again by
+ * other moves is not searched twice. Everything it needs while searching is
+ * allocated up front, so the search itself allocates nothing.
+ *
+ * One Search is used by one thread at a time, and it plays on the position
+ * it is given, putting it back the way it was when it is done. Several of
+ * them can share one table to search on more than one thread, which is what
+ * ParallelSearch does.
+ */
+public class Search
+{
+    public static final int MAX_PLY = 64;
+    public static final int MATE = 100000;
+    private static final int INFINITY = 1000000;
+    private static final int MAX_HISTORY = 1<<20;
+
+    private final TranspositionTable table;
+    private final int[] rootMoves;
+    private final MovePicker[] pickers; //one for each ply
+    private final int[][] killers; //quiet moves that caused a cutoff, KILLER_SLOTS for each ply
+    private final int[] history; //how much each quiet move has caused cutoffs, by MovePicker.historyIndex
+    private final int[][] pv;
+    private final int[] pvLength;
+    private int[] previousPv;
+    private int previousPvLength;
+    private boolean followPv;
+
+    private Position position;
+    private long nodes;
+    private long hashProbes; //counted here, not in the table, so threads don't fight over them
+    private long hashHits;
+    private volatile long deadline; //can be moved by another thread while searching
+    private long maxNodes;
+    private volatile boolean stopped;
+    private Listener listener;
+
+    private int bestMove;
+    private int score;
+    private int depth;
+
+    /**
+     * Makes a search with all the arrays it will ever need and its own table
+     * of the default size
+     */
+    public Search()
+    {
+        this(new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES));
+    }
+
+    /**
+     * Makes a search with all the arrays it will ever need
+     * @param t the transposition table to use
+     */
+    public Search(TranspositionTable t)
+    {
+        table = t;
+        rootMoves = new int[Move.MAX_MOVES];
+        pickers = new MovePicker[MAX_PLY];
+        for (int i = 0; i < MAX_PLY; i++)
+            pickers[i] = new MovePicker();
+        killers = new int[MAX_PLY][MovePicker.KILLER_SLOTS];
+        history = new int[MovePicker.historySize()];
+        pv = new int[MAX_PLY][MAX_PLY];
+        pvLength = new int[MAX_PLY];
+        previousPv = new int[MAX_PLY];
+    }
+
+    /**
+     * Finds the best move for the color going, searching one move deeper at
+     * a time until one of the limits is reached
+     * @param p the position, which is put back the way it was at the end
+     * @param maxDepth the deepest to search
+     * @param millis the most time to take, or 0 for no limit
+     * @param nodeLimit the most positions to look at, or 0 for no limit
+     * @return the best move, or Move.NONE if there are no legal moves
+     */
+    public int search(Position p, int maxDepth, long millis, long nodeLimit)
+    {
+        table.newSearch();
+        return search(p,1,maxDepth,millis,nodeLimit);
+    }
+
+    /**
+     * Finds the best move for the color going, starting the deepening at
+     * some depth. The helpers in a ParallelSearch start at different depths
+     * so they don't all search the same thing at once.
+     * @param p the position, which is put back the way it was at the end
+     * @param startDepth the first depth to search
+     * @param maxDepth the deepest to search
+     * @param millis the most time to take, or 0 for no limit
+     * @param nodeLimit the most positions to look at, or 0 for no limit
+     * @return the best move, or Move.NONE if there are no legal moves
+     */
+    int search(Position p, int startDepth, int maxDepth, long millis, long nodeLimit)
+    {
+        position = p;
+        nodes = 0;
+        hashProbes = 0;
+        hashHits = 0;
+        stopped = false;
+        deadline = millis>0 ? System.nanoTime()+millis*1000000 : Long.MAX_VALUE;
+        maxNodes = nodeLimit>0 ? nodeLimit : Long.MAX_VALUE;
+        bestMove = Move.NONE;
+        score = 0;
+        depth = 0;
+        previousPvLength = 0;
+        for (int[] slots: killers)
+            Arrays.fill(slots,Move.NONE);
+        for (int i = 0; i < history.length; i++) //older searches count for less
+            history[i]/=2;
+        int count = position.generateMoves(rootMoves,0);
+        if (count==0)
+            return Move.NONE;
+        bestMove = rootMoves[0]; //something to play even if the first search is cut short
+        maxDepth = Math.min(maxDepth,MAX_PLY-1);
+        for (int d = Math.min(startDepth,maxDepth); d <= maxDepth; d++)
+        {
+            followPv = true;
+            int value = negamax(d,-INFINITY,INFINITY,0);
+            if (stopped)
+                break;
+            score = value;
+            depth = d;
+            bestMove = pv[0][0];
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0],0,previousPv,0,previousPvLength);
+            if (listener!=null)
+                listener.depthDone(depth,score,previousPv,previousPvLength);
+            if (Math.abs(score)>=MATE-MAX_PLY) //found a mate, looking deeper won't help
+                break;
+        }
+        return bestMove;
+    }
+
+    /**
+     * Searches a position, giving back its value for the color going
+     * @param depth how many more moves to look ahead
+     * @param alpha the value the color going already has elsewhere
+     * @param beta the value the other color already has elsewhere
+     * @param ply how many moves from the root this is
+     * @return the value of the position
+     */
+    private int negamax(int depth, int alpha, int beta, int ply)
+    {
+        pvLength[ply] = ply;
+        if ((++nodes&1023)==0)
+            checkLimits();
+        if (stopped)
+            return 0;
+        if (ply>0&&(position.getFiftyMove()>=100||position.repetitions()>=2))
+            return 0;
+        if (depth<=0||ply>=MAX_PLY-1)
+            return quiesce(alpha,beta,ply);
+
+        long key = position.getHash();
+        int hashMove = Move.NONE;
+        long data = table.probe(key);
+        hashProbes++;
+        if (data!=0)
+        {
+            hashHits++;
+            hashMove = TranspositionTable.move(data);
+            if (ply>0&&TranspositionTable.depth(data)>=depth)
+            {
+                int value = fromTable(TranspositionTable.score(data),ply);
+                int bound = TranspositionTable.bound(data);
+                if (bound==TranspositionTable.EXACT
+                    ||(bound==TranspositionTable.LOWER&&value>=beta)
+                    ||(bound==TranspositionTable.UPPER&&value<=alpha))
+                    return value;
+            }
+        }
+
+        if (followPv)
+            followPv = ply<previousPvLength&&position.isLegal(previousPv[ply]);
+        MovePicker picker = pickers[ply];
+        picker.start(position,followPv ? previousPv[ply] : hashMove,killers[ply],history);
+
+        int originalAlpha = alpha;
+        int bestHere = Move.NONE;
+        int best = -INFINITY;
+        int count = 0;
+        int move;
+        while ((move = picker.next())!=Move.NONE)
+        {
+            if (count++>0)
+                followPv = false;
+            position.makeMove(move);
+            int value = -negamax(depth-1,-beta,-alpha,ply+1);
+            position.unmakeMove();
+            if (stopped)
+                return 0;
+            if (value>best)
+            {
+                best = value;
+                bestHere = move;
+                if (value>alpha)
+                {
+                    alpha = value;
+                    pv[ply][ply] = move;
+                    System.arraycopy(pv[ply+1],ply+1,pv[ply],ply+1,pvLength[ply+1]-ply-1);
+                    pvLength[ply] = pvLength[ply+1];
+                    if (alpha>=beta)
+                    {
+                        if (!picker.isCapture(move))
+                            rememberCutoff(move,depth,ply);
+                        break;
+                    }
+                }
+            }
+        }
+        if (count==0) //checkmate or stalemate
+            return position.inCheck(position.colorGoing()) ? -MATE+ply : 0;
+        int bound = TranspositionTable.EXACT;
+        if (best<=originalAlpha)
+            bound = TranspositionTable.UPPER;
+        else if (best>=beta)
+            bound = TranspositionTable.LOWER;
+        table.store(key,bestHere,toTable(best,ply),depth,bound);
+        return best;
+    }
+
+    /**
+     * Searches just the captures and promotions at the end of a line, so it
+     * isn't judged in the middle of an exchange. The color going can always
+     * stand pat, not taking anything and keeping the evaluation, unless it
+     * is in check, when every move that gets out of it is searched instead.
+     * Captures that static exchange evaluation says lose material are
+     * skipped, since standing pat is better.
+     * @param alpha the value the color going already has elsewhere
+     * @param beta the value the other color already has elsewhere
+     * @param ply how many moves from the root this is
+     * @return the value of the position
+     */
+    private int quiesce(int alpha, int beta, int ply)
+    {
+        pvLength[ply] = ply;
+        if ((++nodes&1023)==0)
+            checkLimits();
+        if (stopped)
+            return 0;
+        if (ply>=MAX_PLY-1)
+            return position.evaluate();
+
+        boolean inCheck = position.inCheck(position.colorGoing());
+        int best = -INFINITY;
+        MovePicker picker = pickers[ply];
+        if (inCheck)
+            picker.start(position,Move.NONE,killers[ply],history);
+        else
+        {
+            best = position.evaluate();
+            if (best>=beta)
+                return best;
+            alpha = Math.max(alpha,best);
+            picker.startCaptures(position);
+        }
+        int count = 0;
+        int move;
+        while ((move = picker.next())!=Move.NONE)
+        {
+            count++;
+            if (!inCheck&&Move.promotion(move)==null&&position.see(move)<0)
+                continue;
+            position.makeMove(move);
+            int value = -quiesce(-beta,-alpha,ply+1);
+            position.unmakeMove();
+            if (stopped)
+                return 0;
+            if (value>best)
+            {
+                best = value;
+                if (value>alpha)
+                {
+                    alpha = value;
+                    if (alpha>=beta)
+                        break;
+                }
+            }
+        }
+        if (inCheck&&count==0) //checkmate
+            return -MATE+ply;
+        return best;
+    }
+
+    /**
+     * Mate scores count the moves from the root, but in the table they have
+     * to count from the position itself since it could be reached at any ply
+     * @param value the score counting from the root
+     * @param ply how many moves from the root the position is
+     * @return the score counting from the position
+     */
+    private static int toTable(int value, int ply)
+    {
+        if (value>=MATE-MAX_PLY)
+            return value+ply;
+        if (value<=-MATE+MAX_PLY)
+            return value-ply;
+        return value;
+    }
+
+    /**
+     * Turns a mate score from the table back into one counting from the root
+     * @param value the score counting from the position
+     * @param ply how many moves from the root the position is
+     * @return the score counting from the root
+     */
+    private static int fromTable(int value, int ply)
+    {
+        if (value>=MATE-MAX_PLY)
+            return value-ply;
+        if (value<=-MATE+MAX_PLY)
+            return value+ply;
+        return value;
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff, as a killer for its ply
+     * and in the history, where deeper searches count for more
+     * @param move the move
+     * @param depth how deep the search it cut off was
+     * @param ply how many moves from the root it was
+     */
+    private void rememberCutoff(int move, int depth, int ply)
+    {
+        int[] slots = killers[ply];
+        if (slots[0]!=move)
+        {
+            System.arraycopy(slots,0,slots,1,slots.length-1);
+            slots[0] = move;
+        }
+        int i = MovePicker.historyIndex(position.colorGoing(),move);
+        history[i]+=depth*depth;
+        if (history[i]>=MAX_HISTORY) //keeps the scores in range, and in proportion
+            for (int j = 0; j < history.length; j++)
+                history[j]/=2;
+    }
+
+    /**
+     * Stops the search if it is out of time or nodes
+     */
+    private void checkLimits()
+    {
+        if (nodes>=maxNodes||System.nanoTime()>=deadline)
+            stopped = true;
+    }
+
+    /**
+     * Stops the search from another thread. The best move found so far is
+     * still returned.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * Changes how long the search going on can take, from another thread,
+     * like when the opponent plays the move that was being pondered. A search
+     * started after this gets the time it is given instead.
+     * @param millis the most time to take from now on
+     */
+    public void setTimeLimit(long millis)
+    {
+        deadline = System.nanoTime()+millis*1000000;
+    }
+
+    /**
+     * Sets what hears about the search as it goes
+     * @param l the listener, or null for nothing
+     */
+    public void setListener(Listener l)
+    {
+        listener = l;
+    }
+
+    /**
+     * Gets the value of the best move from the last search, for the color
+     * that was going, in hundredths of a pawn. Mates are near +/-MATE.
+     * @return the value
+     */
+    public int getScore()
+    {
+        return score;
+    }
+
+    /**
+     * Gets the best move from the last search
+     * @return the move
+     */
+    public int getBestMove()
+    {
+        return bestMove;
+    }
+
+    /**
+     * Gets the deepest search that finished
+     * @return the depth
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Gets how many positions the last search looked at
+     * @return the number of nodes
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * Sets the number of positions looked at back to 0 before a search, so
+     * another thread counting them doesn't see the last search's
+     */
+    void clearNodes()
+    {
+        nodes = 0;
+    }
+
+    /**
+     * Gets how many of the table lookups in the last search found their
+     * position
+     * @return the hits over the lookups, 0 if there weren't any
+     */
+    public double getHashHitRate()
+    {
+        return hashProbes==0 ? 0 : (double)hashHits/hashProbes;
+    }
+
+    /**
+     * Gets the transposition table
+     * @return the table
+     */
+    public TranspositionTable getTable()
+    {
+        return table;
+    }
+
+    /**
+     * Gets the line of best play from the last search that finished
+     * @return the moves, starting with the best move
+     */
+    public int[] getPrincipalVariation()
+    {
+        int[] line = new int[previousPvLength];
+        System.arraycopy(previousPv,0,line,0,previousPvLength);
+        return line;
+    }
+
+    /**
+     * Something that wants to hear about a search as it goes, like the UCI
+     * front end printing info lines
+     */
+    public interface Listener
+    {
+        /**
+         * Called on the searching thread every time a depth is finished, so
+         * it should be quick about it
+         * @param depth the depth
+         * @param score the score of the best move, like getScore
+         * @param pv the line of best play, which changes once this returns
+         * @param pvLength how many moves of pv are the line
+         */
+        void depthDone(int depth, int score, int[] pv, int pvLength);
+    }
+}
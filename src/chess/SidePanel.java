@@ -8,20 +8,21 @@ package chess;
 
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.GridLayout;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Timer;
-import java.util.TimerTask;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 public class SidePanel extends JPanel
 {
@@ -29,41 +30,44 @@ public class SidePanel extends JPanel
     private final ChessFrame frame;
     private final JButton resign;
     private final JButton undo;
-    private long whiteClockTime;
-    private long blackClockTime;
-    private final long whiteClockInitialTime;
-    private final long blackClockInitialTime;
-    private long startTime;
+    private final JButton redo;
+    private final ChessClock clock;
+    private final Timer timer;
+    
+    private static final Font CLOCK_FONT = new Font("Sanseriff",Font.BOLD,30);
+    private static final int CLOCK_X = 17;
+    private static final int WHITE_CLOCK_Y = 650; //where the bottoms of the numbers go
+    private static final int BLACK_CLOCK_Y = 50;
+    private static final long LOW_TIME = 120000; //clocks with less than this are red
+    private static final long TENTHS_TIME = 10000; //clocks with less than this show tenths
     
     /**
      * The constructor that makes this SidePanel great
      * @param f the frame this is a part of
-     * @param timeOnClock the...you know...time on clock
+     * @param c the chess clock, or null to play without one
      */
-    public SidePanel(ChessFrame f, long timeOnClock)
+    public SidePanel(ChessFrame f, ChessClock c)
     {
         setLayout(new GridLayout(8,1));
         frame = f;
-        whiteClockInitialTime = timeOnClock*60000;
-        blackClockInitialTime = timeOnClock*60000;
-        if (timeOnClock>0)
-        {
-            whiteClockTime = whiteClockInitialTime;
-            blackClockTime = blackClockInitialTime;
-        }
-        if (whiteClockTime!=0)
+        clock = c;
+        if (clock!=null)
         {
-            setStartTime();
-            Timer timer = new Timer();
-            timer.scheduleAtFixedRate(new TimerTask(){
-            @Override
-            public void run()
+            //it only goes off when a clock will show something new, so it
+            //ticks once a second normally and ten times a second at the end
+            timer = new Timer(0,new ActionListener()
             {
-                updateUI();
-            }
-                     },500,500);//6, 6);
+                @Override
+                public void actionPerformed(ActionEvent e)
+                {
+                    tick();
+                }
+            });
+            timer.setRepeats(false);
+            clock.start(frame.getBoard().colorGoing());
+            timer.start();
         }
-        //timer.stop() stops.
+        else timer = null;
         drawOffer = new JCheckBox("Offer Draw?");
         drawOffer.setToolTipText("Offers your opponent draw after you move");
         add(new JLabel(" "));
@@ -101,56 +105,124 @@ public class SidePanel extends JPanel
             @Override
             public void actionPerformed(ActionEvent e)
             {
-                if (frame.getBoard().getTurn()>0)
-                    frame.getBoard().undoMove();
+                Board board = frame.getBoard();
+                if (board.isThinking())
+                    return;
+                if (board.getTurn()>0)
+                    board.undoMove();
+                if (board.isComputerTurn() && board.getTurn()>0) //takes back the computer's move too
+                    board.undoMove();
+                board.computerMove();
+            }
+        });
+        redo = new JButton("Redo");
+        redo.setToolTipText("Makes the last move that was undone again");
+        redo.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                Board board = frame.getBoard();
+                if (board.isThinking())
+                    return;
+                board.redoMove();
+                if (board.isComputerTurn() && board.canRedo()) //puts the computer's move back too
+                    board.redoMove();
+                board.computerMove();
             }
         });
         
         add(resign);
         add(undo);
-        add(new JLabel(" "));
+        add(redo);
         add(new JLabel(" "));
     }
     
     /**
-     * This figures out how the timer is displayed
+     * This draws the clocks over everything else
      * @param g the Graphics doing everything
      */
     @Override
     public void paint(Graphics g)
     {
         super.paint(g);
-        g.setFont(new Font("Sanseriff",Font.BOLD,30));
-        if (whiteClockTime!=0 && blackClockTime!=0)
+        if (clock==null)
+            return;
+        g.setFont(CLOCK_FONT);
+        drawClock(g,PieceColor.WHITE,WHITE_CLOCK_Y);
+        drawClock(g,PieceColor.BLACK,BLACK_CLOCK_Y);
+    }
+    
+    private void drawClock(Graphics g, PieceColor color, int y)
+    {
+        long time = clock.getRemaining(color);
+        if (time<LOW_TIME)
+            g.setColor(Color.RED);
+        else g.setColor(Color.BLACK);
+        g.drawString(toDate(time),CLOCK_X,y);
+    }
+    
+    /**
+     * This repaints the clock that is running, ends the game if someone is
+     * out of time, and sets the timer to go off when the clock next changes
+     */
+    private void tick()
+    {
+        PieceColor running = clock.getRunning();
+        if (running!=null)
+            repaintClock(running);
+        PieceColor flagged = clock.getFlagged();
+        if (flagged!=null)
         {
-            if (frame.getBoard().colorGoing()==PieceColor.WHITE)
-                whiteClockTime = whiteClockInitialTime-
-                (System.currentTimeMillis()-startTime)+(blackClockInitialTime-blackClockTime);
+            clock.stop();
+            String message;
+            if (flagged==PieceColor.BLACK)
+                message = "White Won on Time";
             else
-                blackClockTime = blackClockInitialTime-
-                (System.currentTimeMillis()-startTime)+(whiteClockInitialTime-whiteClockTime);
-            if (whiteClockTime<120000)
-                g.setColor(Color.RED);
-            else g.setColor(Color.BLACK);
-            g.drawString(toDate(whiteClockTime),17,650);
-            if (blackClockTime<120000)
-                g.setColor(Color.RED);
-            else g.setColor(Color.BLACK);
-            g.drawString(toDate(blackClockTime),17,50);
-            long whiteSec = whiteClockTime/1000;
-            long blackSec = blackClockTime/1000;
-            if (blackSec==0||whiteSec==0)
-            {
-                String message;
-                if (blackSec==0)
-                    message = "White Won on Time";
-                else
-                    message = "Black Won on Time";
-                JOptionPane.showMessageDialog(null,message);
-                System.exit(0);
-            }
-                
+                message = "Black Won on Time";
+            JOptionPane.showMessageDialog(null,message);
+            System.exit(0);
         }
+        if (running==null)
+            return;
+        long time = clock.getRemaining(running);
+        long unit = time<TENTHS_TIME ? 100 : 1000;
+        timer.setInitialDelay((int)(clock.getDelayLeft()+time%unit+1));
+        timer.restart();
+    }
+    
+    /**
+     * Repaints just the part of the panel a clock is drawn in
+     * @param color whose clock
+     */
+    private void repaintClock(PieceColor color)
+    {
+        FontMetrics metrics = getFontMetrics(CLOCK_FONT);
+        int y = color==PieceColor.WHITE ? WHITE_CLOCK_Y : BLACK_CLOCK_Y;
+        repaint(new Rectangle(0,y-metrics.getAscent(),getWidth(),metrics.getAscent()+metrics.getDescent()));
+    }
+    
+    /**
+     * This presses the clock if the color going changed, which the board
+     * calls after every move, undo and redo
+     */
+    public void turnChanged()
+    {
+        if (clock==null)
+            return;
+        clock.setColorGoing(frame.getBoard().colorGoing());
+        repaintClock(PieceColor.WHITE);
+        repaintClock(PieceColor.BLACK);
+        tick();
+    }
+    
+    /**
+     * This gets the chess clock
+     * @return the clock, or null if there isn't one
+     */
+    public ChessClock getClock()
+    {
+        return clock;
     }
     
     /**
@@ -172,6 +244,8 @@ public class SidePanel extends JPanel
     private static String toDate(long time)
     {
         int t = (int)time/1000;
+        if (time<TENTHS_TIME)
+            return t/60+":"+formatNumber(t%60)+"."+time%1000/100;
         if (time<60*1000*60)
             return t/60+":"+formatNumber(t%60);
         else
@@ -189,14 +263,6 @@ public class SidePanel extends JPanel
         else return ""+n;
     }
     
-    /**
-     * This sets the start time to the current time
-     */
-    public final void setStartTime()
-    {
-        startTime = System.currentTimeMillis();
-    }
-    
     /**
      * This figures out if there is a draw offered yet or not
      * @return whether or not the check box for draw is selected
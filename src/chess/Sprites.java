@@ -0,0 +1,122 @@
+package chess;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.ImageIO;
+
+/**
+ * This keeps the pictures of the pieces so they only get read out of
+ * Pictures once. It also keeps copies already shrunk to the size the squares
+ * are drawn at, which only get made again when the board changes size, so
+ * painting the board never has to read or scale a picture.
+ */
+public final class Sprites
+{
+    private static final int TYPES = Type.values().length;
+    private static final int COLORS = PieceColor.values().length;
+    private static final BufferedImage[][] ORIGINALS = new BufferedImage[TYPES][COLORS];
+    private static final BufferedImage[][] SCALED = new BufferedImage[TYPES][COLORS];
+    private static final boolean[][] READ = new boolean[TYPES][COLORS]; //tried, so a missing one isn't tried every paint
+    private static int scaledWidth = -1;
+    private static int scaledHeight = -1;
+
+    private Sprites()
+    {
+    }
+
+    /**
+     * Gets the full size picture of a piece, reading it the first time. A
+     * picture that couldn't be read isn't tried again.
+     * @param type the type of the piece
+     * @param color the color of the piece
+     * @return the picture or null if it couldn't be read
+     */
+    public static synchronized BufferedImage getImage(Type type, PieceColor color)
+    {
+        if (!READ[type.ordinal()][color.ordinal()])
+        {
+            ORIGINALS[type.ordinal()][color.ordinal()] = read(type,color);
+            READ[type.ordinal()][color.ordinal()] = true;
+        }
+        return ORIGINALS[type.ordinal()][color.ordinal()];
+    }
+
+    /**
+     * Gets the picture of a piece shrunk to a size. All the pieces are kept at
+     * one size, the size of the squares, and asking for a new size throws the
+     * old copies away.
+     * @param type the type of the piece
+     * @param color the color of the piece
+     * @param width the width to draw it at
+     * @param height the height to draw it at
+     * @return the picture at that size or null if it couldn't be read
+     */
+    public static synchronized BufferedImage getImage(Type type, PieceColor color, int width, int height)
+    {
+        if (width<=0||height<=0)
+            return null;
+        if (width!=scaledWidth||height!=scaledHeight) //the board was resized
+        {
+            for (BufferedImage[] images: SCALED)
+                for (int i = 0; i < images.length; i++)
+                    images[i] = null;
+            scaledWidth = width;
+            scaledHeight = height;
+        }
+        BufferedImage image = SCALED[type.ordinal()][color.ordinal()];
+        if (image==null)
+        {
+            BufferedImage original = getImage(type,color);
+            if (original==null)
+                return null;
+            image = new BufferedImage(width,height,BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = image.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING,RenderingHints.VALUE_RENDER_QUALITY);
+            g2.drawImage(original,0,0,width,height,null);
+            g2.dispose();
+            SCALED[type.ordinal()][color.ordinal()] = image;
+        }
+        return image;
+    }
+
+    /**
+     * Reads the picture of a piece out of Pictures
+     * @param type the type of the piece
+     * @param color the color of the piece
+     * @return the picture or null if it couldn't be read
+     */
+    private static BufferedImage read(Type type, PieceColor color)
+    {
+        try (InputStream in = Sprites.class.getResourceAsStream("/Pictures/"+imageName(type,color)))
+        {
+            if (in==null)
+                return null;
+            return ImageIO.read(in);
+        }
+        catch (IOException ex)
+        {}
+        return null;
+    }
+
+    /**
+     * Gets the name of the file where the image is based on the piece
+     * @param type the type of the piece
+     * @param color the color of the piece
+     * @return the string name of the image
+     */
+    private static String imageName(Type type, PieceColor color)
+    {
+        String s;
+        if (color==PieceColor.WHITE)
+            s = "W";
+        else
+            s = "B";
+        s+=type+".png";
+        return s;
+    }
+}
@@ -3,28 +3,28 @@ package chess;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.event.MouseEvent;
-import java.awt.event.MouseListener;
 import java.awt.geom.Rectangle2D;
-import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 
 /**
  * @author Michael Miller
- * This is the physical representation of where pieces reside and is what
- * is displayed in graphics
+ * This is one of the places pieces reside. It isn't a component of its own:
+ * the board paints the squares onto one canvas and passes clicks on to the
+ * square under the mouse, and the square draws what changes from move to
+ * move, its highlight and its piece, on top of the board's picture of the
+ * empty board.
  */
-public class Square extends JComponent {
+public class Square {
 
     private final Location location;
-    private Piece piece;
     private final Color color;
     private final Board board;
     private boolean selected;
+    private final Rectangle2D.Double outline; //moved on each paint instead of made again
     
     public static final ColorPackage COLORS = ColorPackage.STANDARD;
+    private static final BasicStroke THICK = new BasicStroke(4.5f); //the inside half of the old 9 wide outline
 
     /**
      * This is the constructor that takes in stuff and instantiates the
@@ -46,41 +46,35 @@ public class Square extends JComponent {
         int row = loc.getRow();
         int col = loc.getCol();
         location = loc;
-        piece = null;
         selected = false;
-        addMouseListener(new SquareListener());
+        outline = new Rectangle2D.Double();
         board = b;
         if ((row + col) % 2 == 0) {
             color = COLORS.getWhite();
         } else {
             color = COLORS.getBlack();
         }
-        setToolTipText(Location.LocToNot(location));
     }
 
     /**
-     * Makes a square in the image of another square
-     * @param a the other square
+     * Sets whether this square is selected, repainting just this square if
+     * that changes anything
+     * @param b 
      */
-    public Square(Square a) {
-        location = new Location(a.location);
-        if (a.piece == null) 
-            piece = null;
-        else 
-            piece = new Piece(a.piece);
-        color = a.color;
-        selected = a.selected;
-        addMouseListener(new SquareListener());
-        board = a.board;
-        setToolTipText(Location.LocToNot(location));
+    public void setSelected(boolean b) {
+        if (selected == b) {
+            return;
+        }
+        selected = b;
+        board.repaintSquare(location.getRow(), location.getCol());
     }
 
     /**
-     * Sets whether this square is selected
-     * @param b 
+     * Determines whether this square is selected
+     * @return whether it is
      */
-    public void setSelected(boolean b) {
-        selected = b;
+    public boolean isSelected() {
+        return selected;
     }
 
     /**
@@ -88,15 +82,23 @@ public class Square extends JComponent {
      * @param p the piece
      */
     public void setPiece(Piece p) {
-        piece = p;
+        board.setPiece(p, location);
     }
 
     /**
-     * Gets the piece that resides here or null
+     * Gets the piece that resides here or null, straight from the position
      * @return the piece
      */
     public Piece getPiece() {
-        return piece;
+        return board.getPiece(location);
+    }
+
+    /**
+     * Gets the color of the square itself
+     * @return the color
+     */
+    public Color getColor() {
+        return color;
     }
 
     /**
@@ -130,50 +132,41 @@ public class Square extends JComponent {
      * @return whether piece==null
      */
     public boolean isEmpty() {
-        return piece == null;
+        return getPiece() == null;
     }
 
     /**
-     * This gets all the graphics going, displaying the piece and the square,
-     * showing if it is highlighted or not.
-     * @param g Graphics that work in mysterious ways
+     * This draws the highlight if the square is selected and the piece if
+     * there is one. The square's color and outline are already in the
+     * board's picture underneath.
+     * @param g2 the graphics of the board
+     * @param x where the square's left side is on the board
+     * @param y where the square's top is on the board
+     * @param width the width of the square
+     * @param height the height of the square
+     * @param showPiece false while the piece is still sliding here
      */
-    @Override
-    public void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g;
-        double width = board.getWidth() / Chess.COLUMNS;
-        double height = board.getHeight() / Chess.ROWS;
-        Rectangle2D.Double outline = new Rectangle2D.Double(0, 0, width, height);
-        if (selected) {
-            g2.setStroke(new BasicStroke(9));
-        } else {
-            g2.setStroke(new BasicStroke(2));
-        }
-        g2.setColor(color);
-        g2.fill(outline);
-        g2.setColor(Color.BLACK);
+    public void paint(Graphics2D g2, int x, int y, int width, int height, boolean showPiece) {
         if (selected) {
+            outline.setRect(x + 2.25, y + 2.25, width - 4.5, height - 4.5);
+            g2.setStroke(THICK);
             g2.setColor(Color.YELLOW);
+            g2.draw(outline);
         }
-        g2.draw(outline);
-        if (piece != null) {
-            double subWidth = width * 5.0 / 6;
-            double subHeight = height * 5.0 / 6;
-            g2.drawImage(piece.getImage(), (int) (width - subWidth) / 2, (int) (height - subHeight) / 2,
-                    (int) subWidth, (int) subHeight, null);
+        Piece piece = getPiece();
+        if (piece != null && showPiece) {
+            int subWidth = width * 5 / 6;
+            int subHeight = height * 5 / 6;
+            g2.drawImage(Sprites.getImage(piece.getType(), piece.getColor(), subWidth, subHeight),
+                    x + (width - subWidth) / 2, y + (height - subHeight) / 2, null);
         }
     }
 
     /**
-     * Takes all the squares in board, and deselects them. This really should
-     * be a method in board. I know. I'll do that at some point.
+     * Deselects the squares on the board that are selected
      */
     public void deselectSquares() {
-        for (Square[] s1 : board.getSquares()) {
-            for (Square s : s1) {
-                s.setSelected(false);
-            }
-        }
+        board.deselectSquares();
     }
     
     /**
@@ -184,6 +177,7 @@ public class Square extends JComponent {
     public String toString()
     {
         String s = "";
+        Piece piece = getPiece();
         if (piece!=null)
             s+=piece+""+location;
         return s;
@@ -191,112 +185,53 @@ public class Square extends JComponent {
     
 
     /**
-     * This beautiful little class does what I want when the mouse is clicked
+     * This makes moves and sets selected and such when the square is
+     * clicked by the mouse, allowing the user to control the flow of the
+     * game. The board calls it for the square under the mouse.
      */
-    class SquareListener implements MouseListener {
-
-        /**
-         * This makes moves and sets selected and such when the square is
-         * clicked by the mouse, allowing the user to control the flow of the
-         * game.
-         * @param event the mouseEvent of clicking
-         */
-        @Override
-        public void mouseClicked(MouseEvent event) {
-            //JOptionPane.showMessageDialog(null,board.toString());
-            if (board.firstSelected() == null) {//this click is first selection
-                if (piece!=null&&board.colorGoing()!=piece.getColor())
-                    return;
-                board.setFirstSelected(getPiece());
-            } else {//piece to move already selected, so this is what happens when a piece is moved
-                if (selected) 
+    public void click() {
+        //JOptionPane.showMessageDialog(null,board.toString());
+        if (board.isComputerTurn()) //wait for the computer to move
+            return;
+        if (board.firstSelected() == null) {//this click is first selection
+            Piece piece = getPiece();
+            if (piece!=null&&board.colorGoing()!=piece.getColor())
+                return;
+            board.setFirstSelected(getPiece());
+        } else {//piece to move already selected, so this is what happens when a piece is moved
+            if (selected&&board.movePiece(board.getLocation(board.firstSelected()),getLoc()))
+            {
+                deselectSquares();
+                board.reportMove();
+                if (board.getFrame().drawOffered() && board.isComputerTurn()) //the computer plays on
+                    board.getFrame().deselectDrawOffer();
+                else if (!board.getStatus().isCheck() && board.getFrame().drawOffered()) //offered draw
                 {
-                    board.movePiece(board.getLocation(board.firstSelected()),getLoc());
-                    deselectSquares();
-                    board.updateUI();
-                    if (board.checkmate()) //informs of checkmate
+                    board.getFrame().deselectDrawOffer();
+                    String color = "";
+                    for (PieceColor c: PieceColor.values())
+                        if (c!=board.colorGoing())
+                            color=c.toString();
+                    String message = color+" offered Draw\nDo you accept?";
+                    int accept=JOptionPane.showConfirmDialog(null,message);
+                    if (accept==JOptionPane.YES_OPTION)
                     {
-                        String message;
-                        if (board.checkmate(PieceColor.WHITE))
-                            message = "Checkmate! Black Wins!";
-                        else
-                            message = "Checkmate! White Wins!";
-                        JOptionPane.showMessageDialog(null,message);
+                        JOptionPane.showMessageDialog(null,"Draw offered and accepted.");
                         System.exit(0);
                     }
-                    else if (board.check()) //informs of check
-                    {
-                        PieceColor color = board.inCheck();
-                        JOptionPane.showMessageDialog(null,color+" is in check!");
-                    }
-                
-                    else if (board.getFrame().drawOffered()) //offered draw
-                    {
-                        //board.updateUI();
-                        board.getFrame().deselectDrawOffer();
-                        String color = "";
-                        for (PieceColor c: PieceColor.values())
-                            if (c!=board.colorGoing())
-                                color=c.toString();
-                        String message = color+" offered Draw\nDo you accept?";
-                        int accept=JOptionPane.showConfirmDialog(null,message);
-                        if (accept==JOptionPane.YES_OPTION)
-                        {
-                            JOptionPane.showMessageDialog(null,"Draw offered and accepted.");
-                            System.exit(0);
-                        }
-                    }
                 }
-                
-                board.setFirstSelected(null);
-            }
-            deselectSquares();
-            if (board.firstSelected() != null && board.firstSelected().equals(getPiece())) {
-                board.selectMoveLocations(board.getMoveLocations(getPiece()));
             }
-            board.updateUI();
-            checkForDraw();
-            if (board.getTurn()>=20)//This gets offer draw and resign selected
-                board.getFrame().setOptionVisibility(true);
+            
+            board.setFirstSelected(null);
         }
-        
-        /**
-         * Nothing at all. They just have to be here so that everything will
-         * compile because they need to implemented as well.
-         * @param event the event described in the method name
-         */
-        @Override
-        public void mousePressed(MouseEvent event) {
+        deselectSquares();
+        if (board.firstSelected() != null && board.firstSelected().equals(getPiece())) {
+            board.selectMoveLocations(board.getMoveLocations(getPiece()));
         }
-        @Override
-        public void mouseExited(MouseEvent event) {
-        }
-        @Override
-        public void mouseReleased(MouseEvent event) {
-        }
-        @Override
-        public void mouseEntered(MouseEvent event) {
-        }
-    }
-    
-    private void checkForDraw()
-    {
-        if (board.draw()!=Board.NOT_DRAW)//checks for a draw or checkmate
-            {
-                int draw = board.draw();
-                String message;
-                if (draw==Board.STALEMATE)
-                    message = "Stalemate! Draw!";
-                else if (draw==Board.THREE_MOVE)
-                    message = "Three Turn Repetition! Draw!";
-                else if (draw==Board.TWO_KINGS)
-                    message = "No mating material! Draw!";
-                else //fifty move draw
-                    message = "You have gone fifty moves without taking or\n"
-                            + "moving a pawn. The game is a draw.";
-                JOptionPane.showMessageDialog(null,message);
-                System.exit(0);
-            }
+        board.checkForDraw();
+        if (board.getTurn()>=20)//This gets offer draw and resign selected
+            board.getFrame().setOptionVisibility(true);
+        board.computerMove();
     }
 }
 
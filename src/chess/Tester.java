@@ -13,6 +13,23 @@ public final class Tester
 {
     public static void main(String args[])
     {
-        
+        undoAfterSetPiece();
+    }
+
+    /**
+     * Checks that undoing a move after a piece was set by hand goes back to
+     * the position before the move, hash and all, not to one with the move
+     * taken back over the change
+     */
+    private static void undoAfterSetPiece()
+    {
+        Position p = new Position(Chess.startingPosition());
+        p.movePiece(new Location(6,4),new Location(4,4),null); //e4
+        p.setPiece(null,new Location(0,3)); //no black queen
+        p.undoMove();
+        String fen = Fen.toString(p);
+        boolean ok = fen.equals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1")
+            &&p.getHash()==Fen.parse(fen).getHash();
+        System.out.println((ok ? "ok" : "FAILED")+": undo after setPiece gives "+fen);
     }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This remembers what the search found out about positions it has already
+ * seen, keyed by their Zobrist keys: how deep it looked, whether the score is
+ * exact or just a bound, the score and the best move. Everything lives in
+ * direct buffers outside the Java heap that are made once at the start, so
+ * even a table of several gigabytes is no work for the garbage collector.
+ *
+ * The table is made of buckets of two entries. The first entry keeps the
+ * deepest search of a position (unless it is from an older search), the
+ * second always takes whatever is stored, so new positions always get in.
+ *
+ * Each entry is the key and the data, 8 bytes each. The data is packed as
+ * bits 0-19: move, bits 20-40: score + SCORE_OFFSET, bits 41-48: depth,
+ * bits 49-50: bound, bits 51-58: the search it was stored in.
+ *
+ * Several searches can share one table from different threads without any
+ * locking. The key is stored XORed with the data, so if two threads write
+ * the same entry at once and it ends up with one's key and the other's data,
+ * the key won't check out and the entry just looks empty.
+ */
+public class TranspositionTable
+{
+    //bounds
+    public static final int EXACT = 1;
+    public static final int LOWER = 2; //the score is at least this
+    public static final int UPPER = 3; //the score is at most this
+
+    public static final int DEFAULT_MEGABYTES = Integer.getInteger("chess.hash",64);
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_BYTES = 2*ENTRY_BYTES;
+    private static final int CHUNK_BYTES = 1<<30; //a direct buffer can't hold more than 2GB
+    private static final int SCORE_OFFSET = 1<<20;
+
+    private final ByteBuffer[] chunks;
+    private final long bucketMask;
+    private final int bucketsPerChunkShift;
+    private int generation;
+
+    /**
+     * Makes a table that takes up at most some number of megabytes, rounded
+     * down to a power of two
+     * @param megabytes the size of the table
+     */
+    public TranspositionTable(int megabytes)
+    {
+        long bytes = Math.max(1,megabytes)*1024L*1024L;
+        long buckets = Long.highestOneBit(bytes/BUCKET_BYTES);
+        bucketMask = buckets-1;
+        long chunkBuckets = Math.min(buckets,CHUNK_BYTES/BUCKET_BYTES);
+        bucketsPerChunkShift = Long.numberOfTrailingZeros(chunkBuckets);
+        chunks = new ByteBuffer[(int)(buckets/chunkBuckets)];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = ByteBuffer.allocateDirect((int)(chunkBuckets*BUCKET_BYTES))
+                    .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Starts a new search, so entries from older searches give way to new ones.
+     * With several threads sharing the table, only call this before they start.
+     */
+    public void newSearch()
+    {
+        generation = (generation+1)&255;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear()
+    {
+        for (ByteBuffer chunk: chunks)
+            for (int i = 0; i < chunk.capacity(); i+=8)
+                chunk.putLong(i,0);
+    }
+
+    /**
+     * Looks up a position
+     * @param key the Zobrist key of the position
+     * @return the packed data, or 0 if the position isn't there
+     */
+    public long probe(long key)
+    {
+        ByteBuffer chunk = chunk(key);
+        int index = index(key);
+        for (int i = 0; i < 2; i++, index+=ENTRY_BYTES)
+        {
+            long data = chunk.getLong(index+8);
+            if (data!=0&&(chunk.getLong(index)^data)==key)
+                return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Remembers what the search found out about a position
+     * @param key the Zobrist key of the position
+     * @param move the best move, or Move.NONE
+     * @param score the score
+     * @param depth how deep the search was
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public void store(long key, int move, int score, int depth, int bound)
+    {
+        ByteBuffer chunk = chunk(key);
+        int index = index(key);
+        long first = chunk.getLong(index+8);
+        //the first entry only gives way to as deep a search or an old one
+        if ((chunk.getLong(index)^first)!=key&&first!=0&&depth(first)>depth&&age(first)==generation)
+            index+=ENTRY_BYTES;
+        long data = (move&0xFFFFFL)
+                | (long)(score+SCORE_OFFSET)<<20
+                | (long)(Math.max(0,Math.min(depth,255)))<<41
+                | (long)bound<<49
+                | (long)generation<<51;
+        chunk.putLong(index,key^data);
+        chunk.putLong(index+8,data);
+    }
+
+    /**
+     * Gets the move out of some packed data
+     * @param data the data from probe
+     * @return the move
+     */
+    public static int move(long data)
+    {
+        return (int)(data&0xFFFFF);
+    }
+
+    /**
+     * Gets the score out of some packed data
+     * @param data the data from probe
+     * @return the score
+     */
+    public static int score(long data)
+    {
+        return (int)((data>>>20)&0x1FFFFF)-SCORE_OFFSET;
+    }
+
+    /**
+     * Gets the depth out of some packed data
+     * @param data the data from probe
+     * @return the depth
+     */
+    public static int depth(long data)
+    {
+        return (int)((data>>>41)&255);
+    }
+
+    /**
+     * Gets the bound out of some packed data
+     * @param data the data from probe
+     * @return EXACT, LOWER or UPPER
+     */
+    public static int bound(long data)
+    {
+        return (int)((data>>>49)&3);
+    }
+
+    private static int age(long data)
+    {
+        return (int)((data>>>51)&255);
+    }
+
+    /**
+     * Guesses how full the table is from the first thousand buckets, counting
+     * only entries from the current search
+     * @return how full it is, in thousandths
+     */
+    public int getFill()
+    {
+        int used = 0;
+        int sample = (int)Math.min(1000,bucketMask+1);
+        ByteBuffer chunk = chunks[0];
+        for (int i = 0; i < sample; i++)
+            for (int j = 0; j < 2; j++)
+            {
+                long data = chunk.getLong(i*BUCKET_BYTES+j*ENTRY_BYTES+8);
+                if (data!=0&&age(data)==generation)
+                    used++;
+            }
+        return used*1000/(2*sample);
+    }
+
+    /**
+     * Gets the size of the table
+     * @return the number of entries
+     */
+    public long getEntries()
+    {
+        return 2*(bucketMask+1);
+    }
+
+    private ByteBuffer chunk(long key)
+    {
+        return chunks[(int)((key&bucketMask)>>>bucketsPerChunkShift)];
+    }
+
+    private int index(long key)
+    {
+        long bucket = key&bucketMask&((1L<<bucketsPerChunkShift)-1);
+        return (int)(bucket*BUCKET_BYTES);
+    }
+}
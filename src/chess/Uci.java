@@ -0,0 +1,478 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This lets tournament programs and scripts play against the computer
+ * without the board, by speaking the Universal Chess Interface on standard
+ * in and out. Run it with java chess.Uci.
+ *
+ * The thread that starts it only reads commands, so stop and ponderhit are
+ * seen the moment they come in. Searching happens on a search thread (and
+ * the ParallelSearch helpers), and everything printed goes through a queue
+ * to a printing thread, so the search never waits on the output.
+ *
+ * Nothing big is made until the first isready, go or ucinewgame, so it
+ * answers uci straight away.
+ */
+public final class Uci
+{
+    public static final String NAME = "Chess";
+    public static final String AUTHOR = "Michael Miller";
+    private static final int MAX_HASH = 65536;
+    private static final int MAX_THREADS = 512;
+    private static final long SAFETY_MILLIS = 20; //kept back from every move for getting the move out
+
+    private static final String END = new String("end"); //told apart from other lines by ==
+
+    private final LinkedBlockingQueue<String> output = new LinkedBlockingQueue<>();
+    private final ExecutorService searcher;
+    private final Thread printer;
+    private final Object lock = new Object();
+
+    private int hashMegabytes = TranspositionTable.DEFAULT_MEGABYTES;
+    private int threads = ParallelSearch.DEFAULT_THREADS;
+    private ParallelSearch engine;
+    private Position position = Fen.parse(Fen.START);
+    private Future<?> search;
+    private long searchStart;
+
+    //these are changed by the reading thread while the search thread looks at them
+    private volatile boolean stopRequested;
+    private volatile long ponderhitMillis = -1; //the time to take once the ponder move is played
+    private volatile long deadline; //when the search has to stop after a ponderhit, or 0
+    private boolean holding; //bestmove waits for stop or ponderhit, guarded by lock
+
+    private Uci()
+    {
+        searcher = Executors.newSingleThreadExecutor(daemons("uci search"));
+        printer = daemons("uci output").newThread(new Runnable()
+        {
+            public void run()
+            {
+                print(System.out);
+            }
+        });
+        printer.start();
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        Uci uci = new Uci();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine())!=null)
+            if (!uci.command(line.trim()))
+                break;
+        uci.quit();
+    }
+
+    /**
+     * Does one command
+     * @param line the command
+     * @return false if it was quit
+     */
+    private boolean command(String line)
+    {
+        String[] words = line.split("\\s+");
+        switch (words[0])
+        {
+            case "uci":
+                send("id name "+NAME);
+                send("id author "+AUTHOR);
+                send("option name Hash type spin default "+TranspositionTable.DEFAULT_MEGABYTES
+                        +" min 1 max "+MAX_HASH);
+                send("option name Threads type spin default "+ParallelSearch.DEFAULT_THREADS
+                        +" min 1 max "+MAX_THREADS);
+                send("option name Ponder type check default false");
+                send("uciok");
+                break;
+            case "isready":
+                engine();
+                send("readyok");
+                break;
+            case "setoption":
+                setOption(words);
+                break;
+            case "ucinewgame":
+                waitForSearch();
+                engine().getTable().clear();
+                break;
+            case "position":
+                waitForSearch();
+                setPosition(line,words);
+                break;
+            case "go":
+                waitForSearch();
+                go(words);
+                break;
+            case "stop":
+                stopRequested = true;
+                release();
+                if (engine!=null)
+                    engine.stop();
+                break;
+            case "ponderhit":
+                ponderhit();
+                break;
+            case "quit":
+                return false;
+            default: //commands we don't know are ignored, the way the protocol says
+        }
+        return true;
+    }
+
+    /**
+     * Gets the engine, making it if it hasn't been made since the options
+     * changed
+     * @return the engine
+     */
+    private ParallelSearch engine()
+    {
+        if (engine==null)
+        {
+            engine = new ParallelSearch(threads,new TranspositionTable(hashMegabytes));
+            engine.setListener(new Search.Listener()
+            {
+                public void depthDone(int depth, int score, int[] pv, int pvLength)
+                {
+                    info(depth,score,pv,pvLength);
+                }
+            });
+        }
+        return engine;
+    }
+
+    /**
+     * Sets Hash or Threads, which means making a new engine
+     * @param words the command, like setoption name Hash value 128
+     */
+    private void setOption(String[] words)
+    {
+        String name = null;
+        String value = null;
+        for (int i = 1; i+1 < words.length; i++)
+            if (words[i].equals("name"))
+                name = words[i+1];
+            else if (words[i].equals("value"))
+                value = words[i+1];
+        if (name==null||value==null)
+            return;
+        try
+        {
+            if (name.equalsIgnoreCase("Hash"))
+                hashMegabytes = Math.max(1,Math.min(MAX_HASH,Integer.parseInt(value)));
+            else if (name.equalsIgnoreCase("Threads"))
+                threads = Math.max(1,Math.min(MAX_THREADS,Integer.parseInt(value)));
+            else
+                return;
+        }
+        catch (NumberFormatException ex)
+        {
+            return;
+        }
+        waitForSearch();
+        if (engine!=null)
+        {
+            engine.shutdown();
+            engine = null;
+        }
+    }
+
+    /**
+     * Sets up the position, like position startpos moves e2e4 e7e5 or
+     * position fen ... moves ...
+     * @param line the command
+     * @param words the command split into words
+     */
+    private void setPosition(String line, String[] words)
+    {
+        int moves = line.indexOf(" moves ");
+        try
+        {
+            if (words.length>1&&words[1].equals("fen"))
+            {
+                int fen = line.indexOf("fen")+3;
+                position = Fen.parse(moves<0 ? line.substring(fen) : line.substring(fen,moves));
+            }
+            else
+                position = Fen.parse(Fen.START);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            send("info string "+ex.getMessage());
+            return;
+        }
+        if (moves<0)
+            return;
+        int[] legal = new int[Move.MAX_MOVES];
+        for (String name: line.substring(moves+7).trim().split("\\s+"))
+        {
+            int count = position.generateMoves(legal,0);
+            int move = Move.NONE;
+            for (int i = 0; i < count; i++)
+                if (Move.toString(legal[i]).equals(name))
+                    move = legal[i];
+            if (move==Move.NONE)
+            {
+                send("info string illegal move "+name);
+                return;
+            }
+            position.makeMove(move);
+        }
+    }
+
+    /**
+     * Starts searching on the search thread
+     * @param words the command, like go wtime 60000 btime 60000 winc 1000
+     */
+    private void go(String[] words)
+    {
+        int depth = Search.MAX_PLY-1;
+        long nodes = 0;
+        long moveTime = 0;
+        long time = 0;
+        long increment = 0;
+        int movesToGo = 0;
+        boolean infinite = false;
+        boolean ponder = false;
+        boolean white = position.colorGoing()==PieceColor.WHITE;
+        for (int i = 1; i < words.length; i++)
+        {
+            String word = words[i];
+            if (word.equals("infinite"))
+                infinite = true;
+            else if (word.equals("ponder"))
+                ponder = true;
+            else if (i+1<words.length)
+            {
+                long value;
+                try
+                {
+                    value = Long.parseLong(words[i+1]);
+                }
+                catch (NumberFormatException ex)
+                {
+                    continue;
+                }
+                i++;
+                if (word.equals("depth"))
+                    depth = (int)Math.max(1,Math.min(value,Search.MAX_PLY-1));
+                else if (word.equals("nodes"))
+                    nodes = value;
+                else if (word.equals("movetime"))
+                    moveTime = value;
+                else if (word.equals(white ? "wtime" : "btime"))
+                    time = value;
+                else if (word.equals(white ? "winc" : "binc"))
+                    increment = value;
+                else if (word.equals("movestogo"))
+                    movesToGo = (int)value;
+            }
+        }
+
+        long budget = 0; //no limit
+        if (moveTime>0)
+            budget = Math.max(1,moveTime-SAFETY_MILLIS);
+        else if (time>0)
+            budget = Math.max(1,ChessClock.moveTime(time,increment,movesToGo)-SAFETY_MILLIS);
+
+        final ParallelSearch e = engine();
+        final Position p = position;
+        final int maxDepth = depth;
+        final long maxNodes = nodes;
+        final long millis = ponder||infinite ? 0 : budget;
+        stopRequested = false;
+        ponderhitMillis = ponder ? budget : -1;
+        deadline = 0;
+        synchronized (lock)
+        {
+            holding = ponder||infinite;
+        }
+        searchStart = System.nanoTime();
+        search = searcher.submit(new Runnable()
+        {
+            public void run()
+            {
+                int best = e.search(p,maxDepth,millis,maxNodes);
+                synchronized (lock)
+                {
+                    while (holding) //the protocol says bestmove waits for stop or ponderhit
+                        try
+                        {
+                            lock.wait();
+                        }
+                        catch (InterruptedException ex)
+                        {
+                            return;
+                        }
+                }
+                int[] pv = e.getPrincipalVariation();
+                String move = "bestmove "+Move.toString(best);
+                if (pv.length>1&&pv[0]==best)
+                    move+=" ponder "+Move.toString(pv[1]);
+                send(move);
+            }
+        });
+    }
+
+    /**
+     * The opponent played the move being pondered, so the search now has
+     * the time it would have had for the move
+     */
+    private void ponderhit()
+    {
+        long millis = ponderhitMillis;
+        ponderhitMillis = -1;
+        release();
+        if (millis>0&&engine!=null)
+        {
+            deadline = System.nanoTime()+millis*1000000;
+            engine.setTimeLimit(millis);
+        }
+    }
+
+    /**
+     * Lets the search thread give its bestmove
+     */
+    private void release()
+    {
+        synchronized (lock)
+        {
+            holding = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Prints the info line for a finished depth. It is called on the search
+     * thread, so all it does is put the line in the queue. It also passes on
+     * a stop or a ponderhit that came in just before the search started, and
+     * so never got to it.
+     * @param depth the depth
+     * @param score the score, for the color going
+     * @param pv the line of best play
+     * @param pvLength how long the line is
+     */
+    private void info(int depth, int score, int[] pv, int pvLength)
+    {
+        if (stopRequested)
+            engine.stop();
+        long end = deadline;
+        if (end!=0)
+            engine.setTimeLimit(Math.max(0,(end-System.nanoTime())/1000000));
+        long elapsed = Math.max(1,(System.nanoTime()-searchStart)/1000000);
+        long nodes = engine.countNodes();
+        StringBuilder s = new StringBuilder("info depth ").append(depth);
+        if (Math.abs(score)>=Search.MATE-Search.MAX_PLY)
+        {
+            int plies = Search.MATE-Math.abs(score);
+            s.append(" score mate ").append(score>0 ? (plies+1)/2 : -(plies+1)/2);
+        }
+        else
+            s.append(" score cp ").append(score);
+        s.append(" nodes ").append(nodes).append(" nps ").append(nodes*1000/elapsed)
+         .append(" time ").append(elapsed).append(" hashfull ").append(engine.getTable().getFill())
+         .append(" pv");
+        for (int i = 0; i < pvLength; i++)
+            s.append(' ').append(Move.toString(pv[i]));
+        send(s.toString());
+    }
+
+    /**
+     * Waits for the search going on to finish, stopping it first
+     */
+    private void waitForSearch()
+    {
+        if (search==null)
+            return;
+        stopRequested = true;
+        release();
+        if (engine!=null)
+            engine.stop();
+        try
+        {
+            search.get();
+        }
+        catch (Exception ex)
+        {
+            send("info string "+ex);
+        }
+        search = null;
+    }
+
+    /**
+     * Stops everything and lets the last lines get printed
+     */
+    private void quit()
+    {
+        waitForSearch();
+        searcher.shutdownNow();
+        if (engine!=null)
+            engine.shutdown();
+        send(END);
+        try
+        {
+            printer.join();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a line to be printed
+     * @param line the line, or END to say there is nothing more
+     */
+    private void send(String line)
+    {
+        output.add(line);
+    }
+
+    /**
+     * Prints lines from the queue as they come, on the printing thread
+     * @param out where to print them
+     */
+    private void print(PrintStream out)
+    {
+        try
+        {
+            while (true)
+            {
+                String line = output.take();
+                if (line==END)
+                    break;
+                out.println(line);
+                if (output.isEmpty())
+                    out.flush();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+    }
+
+    private static ThreadFactory daemons(final String name)
+    {
+        return new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread t = new Thread(r,name);
+                t.setDaemon(true); //never keeps the program open
+                return t;
+            }
+        };
+    }
+}
@@ -0,0 +1,372 @@
+package chess;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This checks every game in a PGN file, for taking in games from people we
+ * don't trust. For each game it prints a line with the game's number, legal
+ * or illegal, the result, and how the game ended on the board: CHECKMATE,
+ * one of the draw types (STALEMATE, THREE_MOVE, FIFTY_MOVE or TWO_KINGS), or
+ * - if it just stopped. For an illegal game the last column is the move that
+ * couldn't be played instead. At the end it says how many games there were
+ * and how many games a second each core got through.
+ *
+ * The file is read a few megabytes at a time, cut where a game starts, or
+ * after a result if the games have no tags, and each piece is checked on a
+ * fork-join pool, split in half again and again so idle threads can steal
+ * work. Only a few pieces are read ahead of the ones being printed, so
+ * memory stays the same however big the file is and the games come out in
+ * the order they went in.
+ *
+ * Run it with the file, or - to read from standard in, and -quiet to print
+ * only the totals. -Dchess.threads=N sets how many threads it uses. It exits
+ * with 1 if any game was illegal.
+ */
+public final class Validator
+{
+    public static final int BATCH_BYTES = 1<<22; //how much is read from the file at once
+    private static final int SPLIT_BYTES = 1<<16; //batches smaller than this aren't split
+    public static final int MAX_GAME_BYTES = 1<<26; //no game can be bigger than this
+    private static final byte[][] RESULTS = {
+        "1-0".getBytes(StandardCharsets.US_ASCII),"0-1".getBytes(StandardCharsets.US_ASCII),
+        "1/2-1/2".getBytes(StandardCharsets.US_ASCII),"*".getBytes(StandardCharsets.US_ASCII)};
+    private static final int ENDINGS = 6; //nothing, checkmate and the four draws
+    private static final String[] ENDING_NAMES = new String[ENDINGS];
+
+    static
+    {
+        ENDING_NAMES[0] = "-";
+        ENDING_NAMES[1] = "CHECKMATE";
+        ENDING_NAMES[2+Position.STALEMATE] = "STALEMATE";
+        ENDING_NAMES[2+Position.THREE_MOVE] = "THREE_MOVE";
+        ENDING_NAMES[2+Position.FIFTY_MOVE] = "FIFTY_MOVE";
+        ENDING_NAMES[2+Position.TWO_KINGS] = "TWO_KINGS";
+    }
+
+    private Validator()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        boolean quiet = false;
+        String name = null;
+        for (String arg: args)
+            if (arg.equals("-quiet"))
+                quiet = true;
+            else
+                name = arg;
+        if (name==null)
+        {
+            System.err.println("usage: java chess.Validator [-quiet] file.pgn|-");
+            System.exit(2);
+        }
+        int threads = ParallelSearch.DEFAULT_THREADS;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        PrintStream out = new PrintStream(new BufferedOutputStream(
+                new FileOutputStream(FileDescriptor.out),PgnReader.BUFFER_BYTES),false);
+        Batch total = new Batch(null,0,0,quiet);
+        ArrayDeque<Batch> pending = new ArrayDeque<>();
+        long start = System.nanoTime();
+        try (InputStream in = name.equals("-") ? System.in : new FileInputStream(name))
+        {
+            byte[] data = new byte[BATCH_BYTES];
+            int length = 0;
+            boolean end = false;
+            while (!end)
+            {
+                int n;
+                while (length<data.length&&(n = in.read(data,length,data.length-length))>0)
+                    length+=n;
+                end = length<data.length;
+                int cut = end ? length : lastGameStart(data,length);
+                if (cut<=0&&!end) //no tags to cut at
+                    cut = lastResultEnd(data,length);
+                if (cut<=0&&!end) //one game bigger than the buffer
+                {
+                    if (data.length>=MAX_GAME_BYTES)
+                        throw new IOException("A game is more than "+MAX_GAME_BYTES+" bytes long");
+                    data = Arrays.copyOf(data,data.length*2);
+                    continue;
+                }
+                if (cut>0)
+                {
+                    Batch batch = new Batch(data,0,cut,quiet);
+                    pool.execute(batch);
+                    pending.add(batch);
+                }
+                byte[] next = new byte[Math.max(BATCH_BYTES,length-cut)];
+                System.arraycopy(data,cut,next,0,length-cut);
+                data = next;
+                length-=cut;
+                while (pending.size()>2*threads||(end&&!pending.isEmpty()))
+                    report(pending.remove(),total,out);
+            }
+        }
+        long time = Math.max(1,System.nanoTime()-start);
+        pool.shutdown();
+
+        double perSecond = total.games*1e9/time;
+        int cores = Math.min(threads,Runtime.getRuntime().availableProcessors());
+        out.println("games: "+total.games+", legal: "+(total.games-total.illegal)+", illegal: "+total.illegal);
+        StringBuilder endings = new StringBuilder();
+        for (int i = 1; i < ENDINGS; i++)
+            endings.append(i>1 ? ", " : "").append(ENDING_NAMES[i]).append(": ").append(total.endings[i]);
+        out.println(endings);
+        out.println(time/1000000+" ms on "+threads+" threads: "+(long)perSecond+" games/sec, "
+                +(long)(perSecond/cores)+" games/sec per core");
+        out.flush();
+        if (total.illegal>0)
+            System.exit(1);
+    }
+
+    /**
+     * Prints the games of a batch once it is done and adds it to the totals
+     * @param batch the batch
+     * @param total the totals
+     * @param out where to print
+     */
+    private static void report(Batch batch, Batch total, PrintStream out)
+    {
+        batch.join();
+        long number = total.games;
+        if (batch.lines!=null)
+            for (String line: batch.lines)
+                out.println(++number+"\t"+line);
+        total.add(batch);
+    }
+
+    /**
+     * Finds where the last game in some bytes starts
+     * @param data the bytes
+     * @param length how many of them there are
+     * @return the index of its first tag, or 0 if only one game starts in them
+     */
+    private static int lastGameStart(byte[] data, int length)
+    {
+        for (int i = length-1; i > 0; i--)
+            if (isGameStart(data,i))
+                return i;
+        return 0;
+    }
+
+    /**
+     * Finds where the first game after some index starts
+     * @param data the bytes
+     * @param from the index to start looking
+     * @param to the index after the last byte
+     * @return the index of its first tag, or -1 if no game starts there
+     */
+    private static int nextGameStart(byte[] data, int from, int to)
+    {
+        for (int i = from+1; i < to; i++)
+            if (isGameStart(data,i))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Finds where the last result in some bytes ends
+     * @param data the bytes
+     * @param length how many of them there are
+     * @return the index just after it, or 0 if there isn't one
+     */
+    private static int lastResultEnd(byte[] data, int length)
+    {
+        for (int i = length-1; i > 0; i--)
+            if (isResultEnd(data,i))
+                return i;
+        return 0;
+    }
+
+    /**
+     * Finds where the first result after some index ends
+     * @param data the bytes
+     * @param from the index to start looking
+     * @param to the index after the last byte
+     * @return the index just after it, or -1 if there isn't one
+     */
+    private static int nextResultEnd(byte[] data, int from, int to)
+    {
+        for (int i = from+1; i < to; i++)
+            if (isResultEnd(data,i))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Determines whether a result ends just before some index: 1-0, 0-1,
+     * 1/2-1/2 or * with white space on both sides, which a result in a tag
+     * doesn't have
+     * @param data the bytes
+     * @param i the index, of the white space after the result
+     * @return whether a result ends there
+     */
+    private static boolean isResultEnd(byte[] data, int i)
+    {
+        if ((data[i]&0xFF)>' ')
+            return false;
+        for (byte[] result: RESULTS)
+        {
+            int start = i-result.length;
+            if (start<0||(start>0&&(data[start-1]&0xFF)>' '))
+                continue;
+            int j = 0;
+            while (j<result.length&&data[start+j]==result[j])
+                j++;
+            if (j==result.length)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether a game starts at some index: a [ at the start of a
+     * line, after a line that isn't a tag. The line before is looked at
+     * whole, back to the start of the bytes if need be, so a [ after the
+     * first line of the tags never counts.
+     * @param data the bytes, which start where a game or the file does
+     * @param i the index
+     * @return whether a game starts there
+     */
+    private static boolean isGameStart(byte[] data, int i)
+    {
+        if (data[i]!='['||data[i-1]!='\n')
+            return false;
+        int line = i-2;
+        while (line>=0&&data[line]!='\n')
+            line--;
+        return line+1<i&&data[line+1]!='[';
+    }
+
+    /**
+     * Some bytes of the file, starting and ending where games do, and what
+     * was found checking them. Big ones are split into two halves for other
+     * threads to steal.
+     */
+    private static final class Batch extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] data;
+        private final int from;
+        private final int to;
+        private final boolean quiet;
+        ArrayList<String> lines;
+        long games;
+        long illegal;
+        final long[] endings = new long[ENDINGS];
+
+        Batch(byte[] d, int f, int t, boolean q)
+        {
+            data = d;
+            from = f;
+            to = t;
+            quiet = q;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to-from>SPLIT_BYTES)
+            {
+                int middle = nextGameStart(data,from+(to-from)/2,to);
+                if (middle<0)
+                    middle = nextResultEnd(data,from+(to-from)/2,to);
+                if (middle>0)
+                {
+                    Batch first = new Batch(data,from,middle,quiet);
+                    Batch second = new Batch(data,middle,to,quiet);
+                    invokeAll(first,second);
+                    lines = first.lines;
+                    if (lines!=null)
+                        lines.addAll(second.lines);
+                    add(first);
+                    add(second);
+                    return;
+                }
+            }
+            check();
+        }
+
+        /**
+         * Reads and checks every game in the batch
+         */
+        private void check()
+        {
+            if (!quiet)
+                lines = new ArrayList<>();
+            try (PgnReader reader = new PgnReader(new ByteArrayInputStream(data,from,to-from)))
+            {
+                PgnGame game;
+                while ((game = reader.next())!=null)
+                {
+                    games++;
+                    String ending;
+                    if (game.getError()!=null)
+                    {
+                        illegal++;
+                        ending = game.getError();
+                    }
+                    else
+                    {
+                        int kind = ending(game,reader.getPosition());
+                        endings[kind]++;
+                        ending = ENDING_NAMES[kind];
+                    }
+                    if (lines!=null)
+                        lines.add((game.getError()==null ? "legal" : "illegal")
+                                +"\t"+game.getResult()+"\t"+ending);
+                }
+            }
+            catch (IOException e) //can't happen reading from memory
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Works out how a legal game ended on the board
+         * @param game the game
+         * @param end the position the reader ended the game on, or null if it
+         * had no moves
+         * @return the index of the ending in ENDING_NAMES
+         */
+        private static int ending(PgnGame game, Position end)
+        {
+            if (end==null)
+                end = game.getEndPosition();
+            GameStatus status = end.getStatus();
+            if (status.isCheckmate())
+                return 1;
+            if (status.getDraw()!=Position.NOT_DRAW)
+                return 2+status.getDraw();
+            return 0;
+        }
+
+        /**
+         * Adds the counts of another batch to this one's
+         * @param other the other batch
+         */
+        void add(Batch other)
+        {
+            games+=other.games;
+            illegal+=other.illegal;
+            for (int i = 0; i < ENDINGS; i++)
+                endings[i]+=other.endings[i];
+        }
+    }
+}
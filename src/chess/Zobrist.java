@@ -0,0 +1,75 @@
+package chess;
+
+import java.util.Random;
+
+/**
+ * These are the random numbers that get xor'ed together to make the 64 bit
+ * key of a position: one for every piece on every square, one for every set
+ * of castling rights, one for every en passant file and one for black to
+ * move. Two positions that are the same for the rules get the same key, and
+ * making a move only has to xor a few numbers in and out.
+ */
+public final class Zobrist
+{
+    private static final int TYPES = Type.values().length; //values() makes a new array every call
+    private static final long[][] PIECES = new long[2*TYPES][Chess.ROWS*Chess.COLUMNS];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] PASSANT = new long[Chess.COLUMNS+1];
+    public static final long BLACK_TO_MOVE;
+
+    //castling rights bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    static
+    {
+        Random random = new Random(0x5EED5EEDL); //fixed so keys are the same every run
+        for (long[] squares: PIECES)
+            for (int i = 0; i < squares.length; i++)
+                squares[i] = random.nextLong();
+        for (int i = 1; i < CASTLING.length; i++)
+            CASTLING[i] = random.nextLong();
+        for (int i = 1; i < PASSANT.length; i++)
+            PASSANT[i] = random.nextLong();
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist()
+    {
+    }
+
+    /**
+     * Gets the number for a piece of a type and color on a square
+     * @param type the type of the piece
+     * @param color the color of the piece
+     * @param row the row of the square
+     * @param col the col of the square
+     * @return the number
+     */
+    public static long piece(Type type, PieceColor color, int row, int col)
+    {
+        return PIECES[color.ordinal()*TYPES+type.ordinal()][row*Chess.COLUMNS+col];
+    }
+
+    /**
+     * Gets the number for a set of castling rights
+     * @param rights the rights, made of the castling rights bits
+     * @return the number, 0 if nobody can castle
+     */
+    public static long castling(int rights)
+    {
+        return CASTLING[rights];
+    }
+
+    /**
+     * Gets the number for the file a pawn can be taken en passant on
+     * @param file the col of the pawn, or -1 if there isn't one
+     * @return the number, 0 if there is no en passant
+     */
+    public static long passant(int file)
+    {
+        return PASSANT[file+1];
+    }
+}